@@ -0,0 +1,29 @@
+/**
+ * Licensed under MIT No Attribution.
+ */
+package sc.bjg.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entrypoint of the benchmark jar. It takes the same arguments as the JMH command line, and always adds the GC profiler, so every result comes with
+ * the allocation rate per operation needed to compare runs of different releases.
+ */
+public class Benchmarks {
+
+	/**
+	 * The main method of the benchmarks.
+	 * 
+	 * @param args  JMH command line arguments, such as a regular expression of the benchmarks to run, or {@code -p copies=100}.
+	 * @throws Exception if the arguments are not valid or the benchmarks fail.
+	 */
+	public static void main(String... args) throws Exception {
+		
+		new Runner(new OptionsBuilder().parent(new CommandLineOptions(args)).addProfiler(GCProfiler.class).build()).run();
+		
+	}
+	
+}
@@ -0,0 +1,23 @@
+/**
+ * Licensed under MIT No Attribution.
+ */
+package sc.bjg.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Settings shared by every benchmark. Templates of the largest size take tens of milliseconds to process, so times are reported per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5 , time = 1)
+@Measurement(iterations = 5 , time = 1)
+@Fork(1)
+public abstract class Defaults {}
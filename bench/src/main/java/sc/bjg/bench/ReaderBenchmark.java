@@ -0,0 +1,29 @@
+/**
+ * Licensed under MIT No Attribution.
+ */
+package sc.bjg.bench;
+
+import java.io.FileNotFoundException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+
+import sc.bjg.TextReader;
+
+/**
+ * Benchmarks reading and tokenizing a template.
+ */
+public class ReaderBenchmark extends Defaults {
+
+	@Benchmark public TextReader parse(TemplateState state) throws FileNotFoundException {
+		
+		return new TextReader(state.template.toString());
+		
+	}
+
+	@Benchmark public TextReader parseWithoutText(TemplateState state) throws FileNotFoundException {
+		
+		return new TextReader(state.template.toString() , false);
+		
+	}
+	
+}
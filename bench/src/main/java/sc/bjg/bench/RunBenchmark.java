@@ -0,0 +1,58 @@
+/**
+ * Licensed under MIT No Attribution.
+ */
+package sc.bjg.bench;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import sc.bjg.Run;
+
+/**
+ * Benchmarks whole runs of BJG, from reading a template to writing its output, with one task of each type as well as in streaming mode.
+ */
+public class RunBenchmark extends Defaults {
+
+	@State(Scope.Thread)
+	public static class Arguments {
+		
+		public String[] 
+			inMemory ,
+			streaming;
+		
+		@Setup public void setup(TemplateState state) throws IOException {
+			
+			File output = File.createTempFile("bjg-run-" , ".java");
+			output.deleteOnExit();
+			String in = state.template.toString();
+			inMemory = new String[] {
+				"-in" , in , "-o" , output.getPath() , 
+				"-rp" , "1" , "IntReferencer" , "-rm" , "2" , "-p" , "9" , "pre" , "-i" , "7" , "1" , "XX" , "-a" , "8" , "Int"
+			};
+			
+			streaming = new String[inMemory.length + 1];
+			System.arraycopy(inMemory , 0 , streaming , 0 , inMemory.length);
+			streaming[inMemory.length] = "-s";
+			
+		}
+		
+	}
+	
+	@Benchmark public void run(Arguments arguments) {
+		
+		Run.main(arguments.inMemory);
+		
+	}
+
+	@Benchmark public void stream(Arguments arguments) {
+		
+		Run.main(arguments.streaming);
+		
+	}
+	
+}
@@ -0,0 +1,79 @@
+/**
+ * Licensed under MIT No Attribution.
+ */
+package sc.bjg.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import sc.bjg.task.AppendTask;
+import sc.bjg.task.EditableText;
+import sc.bjg.task.InsertTask;
+import sc.bjg.task.PrependTask;
+import sc.bjg.task.RemoveTask;
+import sc.bjg.task.ReplaceTask;
+
+/**
+ * Benchmarks copying the text of a template and each of the five tasks on it. Tasks change the text they run on, so each invocation runs on a
+ * fresh copy, made outside of the measured time.
+ */
+public class TaskBenchmark extends Defaults {
+
+	@State(Scope.Thread)
+	public static class Text {
+		
+		public EditableText text;
+		
+		@Setup(Level.Invocation) public void copy(TemplateState state) {
+			
+			text = new EditableText(state.reader.sourceFile);
+			
+		}
+		
+	}
+	
+	@Benchmark public EditableText copy(TemplateState state) {
+		
+		return new EditableText(state.reader.sourceFile);
+		
+	}
+	
+	@Benchmark public EditableText prepend(TemplateState state , Text text) {
+		
+		new PrependTask(text.text , state.reader.getTokenByID(9) , "pre").run();
+		return text.text;
+		
+	}
+
+	@Benchmark public EditableText replace(TemplateState state , Text text) {
+		
+		new ReplaceTask(text.text , state.reader.getTokenByID(1) , "IntReferencer").run();
+		return text.text;
+		
+	}
+
+	@Benchmark public EditableText remove(TemplateState state , Text text) {
+		
+		new RemoveTask(text.text , state.reader.getTokenByID(2)).run();
+		return text.text;
+		
+	}
+
+	@Benchmark public EditableText insert(TemplateState state , Text text) {
+		
+		new InsertTask(text.text , state.reader.getTokenByID(7) , 1 , "XX").run();
+		return text.text;
+		
+	}
+
+	@Benchmark public EditableText append(TemplateState state , Text text) {
+		
+		new AppendTask(text.text , state.reader.getTokenByID(8) , "Int").run();
+		return text.text;
+		
+	}
+	
+}
@@ -0,0 +1,36 @@
+/**
+ * Licensed under MIT No Attribution.
+ */
+package sc.bjg.bench;
+
+import java.io.FileNotFoundException;
+import java.nio.file.Path;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import sc.bjg.TextReader;
+
+/**
+ * A generated template on disk and a reader of it, shared by the benchmarks of a trial. The parameters scale the template by flag count, nine flags
+ * to a copy, and by size, through lines without flags.
+ */
+@State(Scope.Benchmark)
+public class TemplateState {
+
+	@Param({"1" , "100" , "10000"}) public int copies;
+	@Param({"0" , "100"}) public int paddingLines;
+	
+	public Path template;
+	public TextReader reader;
+	
+	@Setup public void setup() throws FileNotFoundException {
+		
+		template = Templates.write(copies , paddingLines);
+		reader = new TextReader(template.toString());
+		
+	}
+	
+}
@@ -0,0 +1,85 @@
+/**
+ * Licensed under MIT No Attribution.
+ */
+package sc.bjg.bench;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Generator of synthetic templates shaped like {@code in/Referencer.java}. A template is a number of copies of a class with nine flags, each copy
+ * optionally padded with lines that hold no flags, so the size of a template and the number of flags in it can be scaled apart from each other.
+ * <p>
+ * 	Every copy flags the same tokens, but with IDs of its own. Flag {@code 10 * copy + n} identifies the same token as flag {@code n} of
+ * 	{@code in/Referencer.java}, so a task on flag 1 to 9 finds one occurrence of its token per copy.
+ * </p>
+ */
+public class Templates {
+
+	/**
+	 * Generates a template.
+	 * 
+	 * @param copies  Number of copies of the class, each with nine flags.
+	 * @param paddingLines  Number of lines without flags added to each copy.
+	 * @return Text of the template.
+	 */
+	public static String generate(int copies , int paddingLines) {
+		
+		StringBuilder text = new StringBuilder(copies * (1000 + paddingLines * 40));
+		text.append("package test;\n\n");
+		for(int i = 0 ; i < copies ; i++) {
+			
+			long ID = i * 10L;
+			text
+				.append("public class /*__").append(ID + 1).append("__*/Referencer /*__").append(ID + 2).append("__*/<T> {\n\t\n")
+				.append("\tprivate volatile /*__").append(ID + 3).append("__*/T value;\n\t\n")
+				.append("\tpublic Referencer(T initialValue) {\n\t\t\n\t\tthis.value = initialValue;\n\t\t\n\t}\n\t\n")
+				.append("\tpublic Referencer() {\n\t\t\n\t\tvalue = /*__").append(ID + 4).append("__*/null;\n\t\t\n\t}\n\t\n");
+			
+			for(int j = 0 ; j < paddingLines ; j++) text.append("\t// padding line ").append(j).append(" without any flags in it\n");
+			
+			text
+				.append("\tpublic T /*__").append(ID + 8).append("__*/get () {\n\t\t\n\t\treturn value;\n\t\t\n\t}\n\t\n")
+				.append("\tpublic void /*__").append(ID + 9).append("__*/set (T value) {\n\t\t\n\t\tthis.value = value;\n\t\t\n\t}\n\t\n")
+				.append("\t@Override public String toString() {\n\t\t\n\t\treturn /*__").append(ID + 7)
+				.append("__*/\"Referencer containing: \" + String.valueOf(value);\n\t\t\n\t}\n\t\n")
+				.append("\t@Override public int hashCode() {\n\t\t\n\t\treturn /*__").append(ID + 5).append("__*/value.hashCode();\n\t\t\n\t}\n\t\n")
+				.append("\t@SuppressWarnings(\"unchecked\") @Override public boolean equals(Object other) {\n\t\t\n")
+				.append("\t\treturn other instanceof Referencer && ((Referencer<T>)other).value/*__").append(ID + 6)
+				.append("__*/.equals(value);\n\t\t\n\t}\n\t\n}\n\n");
+			
+		}
+		
+		return text.toString();
+		
+	}
+	
+	/**
+	 * Generates a template and writes it to a new temporary file, which is deleted when the JVM exits.
+	 * 
+	 * @param copies  Number of copies of the class, each with nine flags.
+	 * @param paddingLines  Number of lines without flags added to each copy.
+	 * @return Path of the file.
+	 * @throws UncheckedIOException if the file cannot be written.
+	 */
+	public static Path write(int copies , int paddingLines) {
+		
+		try {
+			
+			Path file = Files.createTempFile("bjg-template-" + copies + "-" + paddingLines + "-" , ".java");
+			file.toFile().deleteOnExit();
+			Files.write(file , generate(copies , paddingLines).getBytes(StandardCharsets.UTF_8));
+			return file;
+			
+		} catch(IOException e) {
+			
+			throw new UncheckedIOException(e);
+			
+		}
+		
+	}
+	
+}
@@ -0,0 +1,45 @@
+/**
+ * Licensed under MIT No Attribution.
+ */
+package sc.bjg.bench;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import sc.bjg.ResultWriter;
+import sc.bjg.task.EditableText;
+
+/**
+ * Benchmarks writing the text of a template to a file.
+ */
+public class WriterBenchmark extends Defaults {
+
+	@State(Scope.Thread)
+	public static class Output {
+		
+		public EditableText text;
+		public String path;
+		
+		@Setup public void setup(TemplateState state) throws IOException {
+			
+			text = new EditableText(state.reader.sourceFile);
+			File file = File.createTempFile("bjg-output-" , ".java");
+			file.deleteOnExit();
+			path = file.getPath();
+			
+		}
+		
+	}
+	
+	@Benchmark public void write(Output output) throws IOException {
+		
+		new ResultWriter(output.path , output.text).write();
+		
+	}
+	
+}
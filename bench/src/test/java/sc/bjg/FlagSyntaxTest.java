@@ -0,0 +1,57 @@
+/**
+ * Licensed under MIT No Attribution.
+ */
+package sc.bjg;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+/**
+ * Checks that a syntax of several pairs finds the flags of each pair wherever they are written, including right after characters that began a
+ * prefix of another pair, or of the same one.
+ */
+public class FlagSyntaxTest {
+	
+	private static final FlagSyntax MIXED = FlagSyntax.DEFAULT.or(new FlagSyntax("#__" , "__#")).or(new FlagSyntax("<!--__" , "__-->"));
+	
+	private static TextReader read(String text) {
+		
+		return TextReader.decode(text.getBytes(StandardCharsets.UTF_8) , StandardCharsets.UTF_8 , MIXED);
+		
+	}
+	
+	@Test public void findsFlagsAfterTheStartOfAnotherPrefix() {
+		
+		TextReader reader = read(
+			"class A { String a = #/*__1__*/one ; }\n" +
+			"echo /#__2__#two <#__3__#three\n" +
+			"<a><!--#__4__#four --></a> <!<!--__5__-->five\n" +
+			"# #<!--__6__-->six //*__7__*/seven /*/*__8__*/eight\n"
+		);
+		
+		String[] tokens = {"one" , "two" , "three" , "four" , "five" , "six" , "seven" , "eight"};
+		assertEquals(tokens.length , reader.numberTokens());
+		for(int i = 0 ; i < tokens.length ; i++) assertEquals(tokens[i] , reader.getTokenByID(i + 1).token());
+		
+	}
+	
+	@Test public void endsAFlagOnlyWithTheSuffixOfItsPrefix() {
+		
+		TextReader reader = read("<!--__1__#one #__2__*/two /*__3__-->three #__4__#four\n");
+		assertEquals(1 , reader.numberTokens());
+		assertFalse(reader.identifies(1));
+		assertEquals("four" , reader.getTokenByID(4).token());
+		
+	}
+	
+	@Test(expected = IllegalArgumentException.class) public void refusesAPrefixContainingAnother() {
+		
+		FlagSyntax.DEFAULT.or(new FlagSyntax("x/*__" , "__x"));
+		
+	}
+	
+}
@@ -0,0 +1,213 @@
+/**
+ * Licensed under MIT No Attribution.
+ */
+package sc.bjg;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Checks that a reader made by {@link TextReader#lowMemory(String, FlagSyntax)} keeps nothing but its text in proportion to the size of the file,
+ * reading each token from that text whenever it is asked for, and that reading a file never takes more than the four bytes per character, and
+ * thirty per flag, that it documents.
+ */
+public class LowMemoryTest {
+	
+	private static final int FLAGS = 10_000;
+	
+	/**
+	 * Most the memory kept by two readers of the same flags may differ by, other than the difference in their texts.
+	 */
+	private static final long SLACK = 4 << 20;
+	
+	/**
+	 * Number of characters of the file read in a JVM of its own, large enough that what the JVM needs on its own is small next to it.
+	 */
+	private static final int PEAK_CHARS = 32 << 20;
+	
+	/**
+	 * Heap given to the JVM reading a file beyond the documented peak of its reader, for what that JVM needs on its own.
+	 */
+	private static final long PEAK_SLACK = 16 << 20;
+	
+	@Rule public final TemporaryFolder folder = new TemporaryFolder();
+	
+	/**
+	 * Reads the file given as the first argument in low memory mode, exiting with 2 unless it has as many flags as the second argument says.
+	 */
+	public static class Peak {
+		
+		public static void main(String[] args) throws IOException {
+			
+			if(TextReader.lowMemory(args[0] , FlagSyntax.DEFAULT).numberTokens() != Integer.parseInt(args[1])) System.exit(2);
+			
+		}
+		
+	}
+	
+	/**
+	 * Writes a file of {@link #FLAGS} flags, the token of flag {@code i} being {@code tok} followed by {@code i}, each preceded by
+	 * {@code padding} characters of other text.
+	 */
+	private File template(int padding) throws IOException {
+		
+		File file = folder.newFile();
+		try(Writer out = Files.newBufferedWriter(file.toPath() , StandardCharsets.US_ASCII)) {
+			
+			for(int i = 1 ; i <= FLAGS ; i++) {
+				
+				for(int j = 0 ; j < padding ; j++) out.write(j % 8 == 7 ? ' ' : 'x');
+				out.write("/*__" + i + "__*/tok" + i + " ");
+				
+			}
+			
+			out.write('\n');
+			
+		}
+		
+		return file;
+		
+	}
+	
+	private static long usedAfterCollection() throws InterruptedException {
+		
+		Runtime runtime = Runtime.getRuntime();
+		for(int i = 0 ; i < 4 ; i++) {
+			
+			System.gc();
+			Thread.sleep(50);
+			
+		}
+		
+		return runtime.totalMemory() - runtime.freeMemory();
+		
+	}
+	
+	/**
+	 * Returns the bytes a low memory reader of {@code file} keeps beyond the two bytes per character of its text.
+	 */
+	private static long keptBeyondText(File file) throws IOException , InterruptedException {
+		
+		long before = usedAfterCollection();
+		TextReader reader = TextReader.lowMemory(file.getPath() , FlagSyntax.DEFAULT);
+		long kept = usedAfterCollection() - before - 2L * reader.text().length();
+		assertEquals(FLAGS , reader.numberTokens());
+		return kept;
+		
+	}
+	
+	/**
+	 * Writes a file of {@link #PEAK_CHARS} characters with {@link #FLAGS} flags spread through it.
+	 */
+	private File large(boolean endsInLineFeed) throws IOException {
+		
+		File file = folder.newFile();
+		int each = PEAK_CHARS / FLAGS;
+		try(Writer out = Files.newBufferedWriter(file.toPath() , StandardCharsets.US_ASCII)) {
+			
+			for(int i = 1 ; i <= FLAGS ; i++) {
+				
+				String flag = "/*__" + i + "__*/tok" + i + " ";
+				for(int j = flag.length() + 1 ; j < each ; j++) out.write(j % 64 == 63 ? '\n' : 'x');
+				out.write(flag);
+				out.write(i < FLAGS || endsInLineFeed ? '\n' : 'x');
+				
+			}
+			
+		}
+		
+		return file;
+		
+	}
+	
+	/**
+	 * Reads {@code file} with {@link Peak} in a JVM whose heap is {@code maxHeap} bytes, with a young generation small enough that the text is
+	 * held in the old one.
+	 */
+	private static void assertReadWithin(File file , long maxHeap) throws IOException , InterruptedException {
+		
+		Process process = new ProcessBuilder(
+			Paths.get(System.getProperty("java.home") , "bin" , "java").toString() ,
+			"-XX:+UseSerialGC" ,
+			"-Xmn4m" ,
+			"-Xmx" + (maxHeap >> 10) + "k" ,
+			"-cp" ,
+			System.getProperty("java.class.path") ,
+			Peak.class.getName() ,
+			file.getPath() ,
+			Integer.toString(FLAGS)
+		).redirectErrorStream(true).start();
+		
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		try(InputStream in = process.getInputStream()) {
+			
+			byte[] chunk = new byte[4096];
+			for(int read ; (read = in.read(chunk)) != -1 ; ) output.write(chunk , 0 , read);
+			
+		}
+		
+		assertEquals(
+			"Reading " + file.length() + " characters in " + (maxHeap >> 20) + "MB: " + output.toString("US-ASCII") ,
+			0 ,
+			process.waitFor()
+		);
+		
+	}
+	
+	@Test public void readsTokensFromItsText() throws IOException {
+		
+		TextReader reader = TextReader.lowMemory(template(64).getPath() , FlagSyntax.DEFAULT);
+		assertNull(reader.sourceFile);
+		assertEquals(FLAGS , reader.numberTokens());
+		for(int i = 1 ; i <= FLAGS ; i++) assertEquals("tok" + i , reader.getTokenByID(i).token());
+		
+		//a token kept as a string would be the same string each time it is asked for
+		assertNotSame(reader.getTokenByID(1).token() , reader.getTokenByID(1).token());
+		
+	}
+	
+	@Test public void keepsOnlyItsTextInProportionToTheFile() throws IOException , InterruptedException {
+		
+		File
+			small = template(16) ,
+			large = template(2048);
+		
+		long
+			keptBySmall = keptBeyondText(small) ,
+			keptByLarge = keptBeyondText(large);
+		
+		assertTrue(
+			"A reader of a file " + large.length() / small.length() + " times larger kept " + (keptByLarge - keptBySmall) + " more bytes than its text" ,
+			keptByLarge - keptBySmall < SLACK
+		);
+		
+	}
+	
+	@Test public void peaksWithinItsDocumentedBound() throws IOException , InterruptedException {
+		
+		//a file not ending in a line feed has one added, so its text does not fit the array sized by the file
+		for(boolean endsInLineFeed : new boolean[] {true , false}) {
+			
+			File file = large(endsInLineFeed);
+			assertReadWithin(file , 4L * file.length() + 30L * FLAGS + PEAK_SLACK);
+			
+		}
+		
+	}
+	
+}
@@ -0,0 +1,142 @@
+/**
+ * Licensed under MIT No Attribution.
+ */
+package sc.bjg;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static sc.bjg.TextReader.lineFeed;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Checks that {@link ParallelScan} finds the same tokens as one {@link FlagScanner} reading the whole text, including the token of a flag that
+ * ends a chunk, and that it reports the same repeated ID when IDs repeat across chunks.
+ */
+public class ParallelScanTest {
+	
+	private static final int MIN = ParallelScan.MIN_CHUNK_SIZE;
+	
+	private static TokenTable serial(CharSequence text) {
+		
+		char[] chars = text.toString().toCharArray();
+		TokenTable tokens = new TokenTable();
+		FlagScanner scanner = new FlagScanner(FlagSyntax.DEFAULT , tokens);
+		scanner.scan(chars , 0 , chars.length);
+		scanner.end();
+		return tokens;
+		
+	}
+	
+	private static void assertSameTokens(TokenTable expected , TokenTable actual) {
+		
+		assertEquals(expected.size() , actual.size());
+		for(int i = 0 ; i < expected.size() ; i++) {
+			
+			assertEquals(expected.ID(i) , actual.ID(i));
+			assertEquals(expected.token(i) , actual.token(i));
+			assertEquals(expected.offset(i) , actual.offset(i));
+			
+		}
+		
+	}
+	
+	private static void assertScansAsSerial(CharSequence text) {
+		
+		TokenTable expected = serial(text);
+		assertSameTokens(expected , ParallelScan.scan(text , FlagSyntax.DEFAULT , true));
+		assertSameTokens(expected , ParallelScan.scan(text , FlagSyntax.DEFAULT , false));
+		
+	}
+	
+	/**
+	 * Pads {@code text} with lines of filler up to where {@code line} and a line feed end at {@code end}, so that the next line begins there.
+	 */
+	private static void lineEndingAt(StringBuilder text , int end , String line) {
+		
+		int start = end - line.length() - 1;
+		while(text.length() < start) text.append(text.length() % 64 == 63 || text.length() == start - 1 ? lineFeed : 'x');
+		text.append(line).append(lineFeed);
+		
+	}
+	
+	private static String repeatedID(CharSequence text , boolean parallel) {
+		
+		try {
+			
+			if(parallel) ParallelScan.scan(text , FlagSyntax.DEFAULT , true);
+			else serial(text);
+			
+		} catch(IllegalArgumentException e) {
+			
+			return e.getMessage();
+			
+		}
+		
+		fail("No repeated ID was reported.");
+		return null;
+		
+	}
+	
+	@Test public void scansRandomTextAsSerial() {
+		
+		Random random = new Random(15);
+		String[] words = {"a" , "bc" , "def" , "/" , "/*_" , "__*/"};
+		StringBuilder text = new StringBuilder(3 * MIN + MIN / 2);
+		long ID = 0;
+		while(text.length() < 3 * MIN) {
+			
+			int next = random.nextInt(20);
+			if(next == 0) text.append(lineFeed);
+			else if(next == 1) text.append("/*__").append(++ID).append("__*/").append(lineFeed);
+			else if(next == 2) text.append("/*__").append(++ID).append("__*/");
+			else text.append(words[random.nextInt(words.length)]).append(' ');
+			
+		}
+		
+		assertScansAsSerial(text);
+		
+	}
+	
+	@Test public void rescansChunkFollowingFlag() {
+		
+		//no more than four chunks per thread of the pool, so each chunk is the smallest size, and each flag below ends one
+		StringBuilder text = new StringBuilder(3 * MIN);
+		for(int i = 1 ; i <= 2 ; i++) {
+			
+			lineEndingAt(text , i * MIN , "/*__" + i + "__*/");
+			text.append("after").append(i).append(" x").append(lineFeed);
+			
+		}
+		
+		lineEndingAt(text , 2 * MIN + MIN / 2 , "end");
+		TokenTable tokens = ParallelScan.scan(text , FlagSyntax.DEFAULT , true);
+		assertEquals("after1" , tokens.token(tokens.indexOf(1)));
+		assertEquals(MIN , tokens.offset(tokens.indexOf(1)));
+		assertEquals("after2" , tokens.token(tokens.indexOf(2)));
+		assertScansAsSerial(text);
+		
+	}
+	
+	@Test public void reportsFirstRepeatedIDAcrossChunks() {
+		
+		//the second chunk repeats an ID of its own after one of the first chunk, which is the one a single scanner reports
+		StringBuilder text = new StringBuilder(3 * MIN);
+		lineEndingAt(text , MIN / 2 , "/*__1__*/one /*__2__*/two");
+		lineEndingAt(text , MIN + MIN / 2 , "/*__1__*/again /*__3__*/three /*__3__*/three");
+		lineEndingAt(text , 2 * MIN + MIN / 2 , "/*__2__*/again");
+		assertEquals(FlagScanner.repeatedID(1).getMessage() , repeatedID(text , false));
+		assertEquals(repeatedID(text , false) , repeatedID(text , true));
+		
+		//an ID repeated within a chunk comes before one repeated from an earlier chunk
+		text = new StringBuilder(3 * MIN);
+		lineEndingAt(text , MIN / 2 , "/*__1__*/one");
+		lineEndingAt(text , MIN + MIN / 2 , "/*__3__*/three /*__3__*/three /*__1__*/again");
+		assertEquals(FlagScanner.repeatedID(3).getMessage() , repeatedID(text , false));
+		assertEquals(repeatedID(text , false) , repeatedID(text , true));
+		
+	}
+	
+}
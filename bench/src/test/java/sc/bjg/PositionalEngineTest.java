@@ -0,0 +1,180 @@
+/**
+ * Licensed under MIT No Attribution.
+ */
+package sc.bjg;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import sc.bjg.task.AppendTask;
+import sc.bjg.task.EditableText;
+import sc.bjg.task.InsertTask;
+import sc.bjg.task.PositionalEngine;
+import sc.bjg.task.PrependTask;
+import sc.bjg.task.RemoveTask;
+import sc.bjg.task.ReplaceTask;
+import sc.bjg.task.TextTask;
+
+/**
+ * Checks that a {@link PositionalEngine} leaves the same text as performing each task at its own token one after another, whether the tasks are
+ * run together on stretches of the text or, once a stretch is outgrown, all again on the whole text.
+ */
+public class PositionalEngineTest {
+	
+	/**
+	 * Edit made by one task at its token: the token's offset and text, and the offset from the token, length, and text of what replaces it.
+	 */
+	private static class Edit {
+		
+		final int
+			site ,
+			offset ,
+			deleteLength;
+		
+		final String
+			token ,
+			insert;
+		
+		Edit(int site , String token , int offset , int deleteLength , String insert) {
+			
+			this.site = site;
+			this.token = token;
+			this.offset = offset;
+			this.deleteLength = deleteLength;
+			this.insert = insert;
+			
+		}
+		
+	}
+	
+	/**
+	 * Makes a random task on a token of {@code source}, adding the edit it stands for to {@code edits}.
+	 */
+	private static TextTask task(EditableText text , String source , Random random , List<Edit> edits) {
+		
+		int site = random.nextInt(source.length());
+		String token = source.substring(site , Math.min(source.length() , site + 1 + random.nextInt(3)));
+		IDedToken flagged = new IDedToken(edits.size() , token , site);
+		String insert = "<" + edits.size() + ">";
+		switch(random.nextInt(5)) {
+			
+			case 0:
+				edits.add(new Edit(site , token , 0 , token.length() , insert));
+				return new ReplaceTask(text , flagged , insert);
+			
+			case 1:
+				edits.add(new Edit(site , token , 0 , token.length() , ""));
+				return new RemoveTask(text , flagged);
+			
+			case 2:
+				edits.add(new Edit(site , token , 0 , 0 , insert));
+				return new PrependTask(text , flagged , insert);
+			
+			case 3:
+				edits.add(new Edit(site , token , token.length() , 0 , insert));
+				return new AppendTask(text , flagged , insert);
+			
+			default:
+				int offset = random.nextInt(token.length() + 1);
+				edits.add(new Edit(site , token , offset , 0 , insert));
+				return new InsertTask(text , flagged , offset , insert);
+			
+		}
+		
+	}
+	
+	/**
+	 * Performs each edit in turn where its token now is, unless the token has been edited or deleted, returning the text and whether each edit
+	 * was made.
+	 */
+	private static String oneAfterAnother(String source , List<Edit> edits , int[] made) {
+		
+		StringBuilder text = new StringBuilder(source);
+		int[] sites = new int[edits.size()];
+		for(int i = 0 ; i < sites.length ; i++) sites[i] = edits.get(i).site;
+		for(int i = 0 ; i < sites.length ; i++) {
+			
+			Edit edit = edits.get(i);
+			if(sites[i] < 0 || sites[i] + edit.token.length() > text.length()) continue;
+			if(!text.substring(sites[i] , sites[i] + edit.token.length()).equals(edit.token)) continue;
+			int at = sites[i] + edit.offset;
+			text.replace(at , at + edit.deleteLength , edit.insert);
+			made[i] = 1;
+			for(int j = i + 1 ; j < sites.length ; j++) {
+				
+				if(sites[j] >= at + edit.deleteLength) sites[j] += edit.insert.length() - edit.deleteLength;
+				else if(sites[j] >= at) sites[j] = -1;
+				
+			}
+			
+		}
+		
+		return text.toString();
+		
+	}
+	
+	@Test public void runsAsTasksOneAfterAnother() {
+		
+		Random random = new Random(16);
+		char[] alphabet = {'a' , 'b' , ' ' , '.'};
+		for(int round = 0 ; round < 20_000 ; round++) {
+			
+			//tasks crowded into a short text, so that many stretches overlap or touch and are run together
+			char[] source = new char[1 + random.nextInt(60)];
+			for(int i = 0 ; i < source.length ; i++) source[i] = alphabet[random.nextInt(alphabet.length)];
+			String original = new String(source);
+			EditableText text = new EditableText(original);
+			List<Edit> edits = new ArrayList<>();
+			List<TextTask> tasks = new ArrayList<>();
+			for(int i = 1 + random.nextInt(8) ; i > 0 ; i--) tasks.add(task(text , original , random , edits));
+			
+			int[] made = new int[tasks.size()];
+			String expected = oneAfterAnother(original , edits , made);
+			new PositionalEngine(text , tasks).run();
+			assertEquals(original , expected , text.toString());
+			for(int i = 0 ; i < made.length ; i++) assertEquals(original , made[i] , tasks.get(i).occurrences());
+			
+		}
+		
+	}
+	
+	@Test public void mergesTouchingStretches() {
+		
+		//the tasks on "a" and "b" touch, so they are run on one stretch in the order given, and the prepend no longer finds its token
+		EditableText text = new EditableText("ab cd");
+		List<TextTask> tasks = Arrays.asList(
+			new AppendTask(text , new IDedToken(1 , "b" , 1) , "!") ,
+			new ReplaceTask(text , new IDedToken(2 , "a" , 0) , "xx") ,
+			new PrependTask(text , new IDedToken(3 , "a" , 0) , "?") ,
+			new ReplaceTask(text , new IDedToken(4 , "d" , 4) , "D")
+		);
+		
+		new PositionalEngine(text , tasks).run();
+		assertEquals("xxb! cD" , text.toString());
+		assertEquals(0 , tasks.get(2).occurrences());
+		
+	}
+	
+	@Test public void fallsBackToWholeText() {
+		
+		//removing "cd" leaves "bc" running past the stretch it was read in, and the task on "head" was already run on a stretch of its own
+		EditableText text = new EditableText("head abcdc");
+		List<TextTask> tasks = Arrays.asList(
+			new ReplaceTask(text , new IDedToken(1 , "head" , 0) , "HEAD") ,
+			new RemoveTask(text , new IDedToken(2 , "cd" , 7)) ,
+			new ReplaceTask(text , new IDedToken(3 , "bc" , 6) , "Z")
+		);
+		
+		new PositionalEngine(text , tasks).run();
+		assertEquals("HEAD aZ" , text.toString());
+		for(TextTask x : tasks) assertEquals(1 , x.occurrences());
+		
+	}
+	
+}
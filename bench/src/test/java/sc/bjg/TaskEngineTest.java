@@ -0,0 +1,121 @@
+/**
+ * Licensed under MIT No Attribution.
+ */
+package sc.bjg;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import sc.bjg.task.AppendTask;
+import sc.bjg.task.EditableText;
+import sc.bjg.task.InsertTask;
+import sc.bjg.task.PrependTask;
+import sc.bjg.task.RemoveTask;
+import sc.bjg.task.ReplaceTask;
+import sc.bjg.task.TaskEngine;
+import sc.bjg.task.TextTask;
+
+/**
+ * Checks that a {@link TaskEngine} leaves the same text, and counts the same occurrences, as running its tasks one after another, and that tasks
+ * on an empty token or inserting past their token edit what they always have.
+ */
+public class TaskEngineTest {
+	
+	private static final String[] TOKENS = {"a" , "ab" , "ba" , "b." , "." , "aa" , "x"};
+	
+	/**
+	 * Creates a random task on {@code text}, made from the same numbers as the task of the same index on any other text.
+	 */
+	private static TextTask task(EditableText text , Random random) {
+		
+		IDedToken token = new IDedToken(1 , TOKENS[random.nextInt(TOKENS.length)] , 0);
+		String insert = TOKENS[random.nextInt(TOKENS.length)];
+		switch(random.nextInt(5)) {
+			
+			case 0: return new ReplaceTask(text , token , insert);
+			case 1: return new RemoveTask(text , token);
+			case 2: return new PrependTask(text , token , insert);
+			case 3: return new AppendTask(text , token , insert);
+			default: return new InsertTask(text , token , random.nextInt(token.token().length() + 1) , insert);
+			
+		}
+		
+	}
+	
+	@Test public void runsAsTasksOneAfterAnother() {
+		
+		Random random = new Random(1);
+		char[] alphabet = {'a' , 'b' , '.' , ' ' , 'x'};
+		for(int round = 0 ; round < 20_000 ; round++) {
+			
+			StringBuilder source = new StringBuilder();
+			for(int i = random.nextInt(40) ; i > 0 ; i--) source.append(alphabet[random.nextInt(alphabet.length)]);
+			EditableText
+				engineText = new EditableText(source) ,
+				serialText = new EditableText(source);
+			
+			long seed = random.nextLong();
+			int count = 1 + random.nextInt(6);
+			List<TextTask>
+				engineTasks = new ArrayList<>() ,
+				serialTasks = new ArrayList<>();
+			
+			Random engineRandom = new Random(seed);
+			Random serialRandom = new Random(seed);
+			for(int i = 0 ; i < count ; i++) {
+				
+				engineTasks.add(task(engineText , engineRandom));
+				serialTasks.add(task(serialText , serialRandom));
+				
+			}
+			
+			new TaskEngine(engineText , engineTasks).run();
+			serialTasks.forEach(TextTask::run);
+			assertEquals(source.toString() , serialText.toString() , engineText.toString());
+			for(int i = 0 ; i < count ; i++) assertEquals(source.toString() , serialTasks.get(i).occurrences() , engineTasks.get(i).occurrences());
+			
+		}
+		
+	}
+	
+	@Test(timeout = 10_000) public void editsBeforeEachCharacterOfEmptyToken() {
+		
+		EditableText text = new EditableText("a /x");
+		TextTask task = new ReplaceTask(text , new IDedToken(1 , "" , 2) , "Q");
+		task.run();
+		assertEquals("QaQ Q/QxQ" , text.toString());
+		assertEquals(5 , task.occurrences());
+		
+		text = new EditableText("a /x");
+		List<TextTask> tasks = new ArrayList<>();
+		tasks.add(new AppendTask(text , new IDedToken(1 , "" , 2) , "Q"));
+		tasks.add(new ReplaceTask(text , new IDedToken(2 , "/" , 2) , "//"));
+		new TaskEngine(text , tasks).run();
+		assertEquals("QaQ Q//QxQ" , text.toString());
+		
+	}
+	
+	@Test public void insertsPastEachTokenInTheTextInsertedSoFar() {
+		
+		//the insert for the first token hides the second one, which is therefore not edited
+		EditableText text = new EditableText("ab.ab");
+		TextTask task = new InsertTask(text , new IDedToken(1 , "ab" , 0) , 4 , "Z");
+		task.run();
+		assertEquals("ab.aZb" , text.toString());
+		assertEquals(1 , task.occurrences());
+		
+		//an insert forming a token is followed by an insert past that token too, as searching goes on as many characters past a token as were inserted
+		text = new EditableText("ab.b.ab..");
+		task = new InsertTask(text , new IDedToken(1 , "ab" , 0) , 3 , "a");
+		task.run();
+		assertEquals("ab.ab.aab.a." , text.toString());
+		assertEquals(3 , task.occurrences());
+		
+	}
+	
+}
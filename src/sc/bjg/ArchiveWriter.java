@@ -0,0 +1,249 @@
+/**
+ * Licensed under MIT No Attribution.
+ */
+package sc.bjg;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Zip archive that generated files are written into as entries, rather than to files of their own. Any number of threads may add entries at once,
+ * while one thread of the archive's own writes them one after another, so creating each file and writing its metadata is replaced by appending to
+ * one stream. Entries waiting to be written are taken together, and each such batch lands in the archive file with as few writes as its size
+ * allows.
+ * <p>
+ * 	An archive whose path ends in {@code .jar} is written as a jar, with a manifest. Entries are written in the order they are added, so entries
+ * 	added by different threads may be written in any order.
+ * </p>
+ */
+public class ArchiveWriter implements Closeable {
+	
+	/**
+	 * Number of entries that may wait to be written before adding another blocks, and size of the buffer a batch of entries is written through.
+	 */
+	static final int
+		QUEUE_SIZE = 256 ,
+		WRITE_BUFFER_SIZE = 1 << 20;
+	
+	/**
+	 * Entry added by {@link #close()}, after which nothing more is written.
+	 */
+	private static final Entry END = new Entry(null , null);
+	
+	private static class Entry {
+		
+		final String path;
+		final byte[] contents;
+		
+		Entry(String path , byte[] contents) {
+			
+			this.path = path;
+			this.contents = contents;
+			
+		}
+		
+	}
+	
+	private final String path;
+	private final BlockingQueue<Entry> queue = new ArrayBlockingQueue<>(QUEUE_SIZE);
+	private final Thread writer;
+	
+	/**
+	 * First exception the writing thread threw, after which it discards every entry so that no thread adding one waits forever.
+	 */
+	private volatile IOException failure;
+	private volatile boolean closed = false;
+	
+	/**
+	 * Creates the archive file, replacing any file at {@code path}, and starts the thread writing it.
+	 * 
+	 * @param path  Path of the archive file.
+	 * @param level  Compression level of every entry, from 0 to 9, or -1 for the default level.
+	 * @throws IOException if the file cannot be created.
+	 * @throws IllegalArgumentException if {@code level} is not a compression level.
+	 */
+	public ArchiveWriter(String path , int level) throws IOException {
+		
+		if(level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION) throw new IllegalArgumentException(
+			level + " is not a compression level, which must be from 0 to 9, or -1 for the default."
+		);
+		
+		this.path = path;
+		OutputStream file = new BufferedOutputStream(new FileOutputStream(path) , WRITE_BUFFER_SIZE);
+		ZipOutputStream out;
+		try {
+			
+			out = path.toLowerCase().endsWith(".jar") ? new JarOutputStream(file , manifest()) : new ZipOutputStream(file);
+			
+		} catch(IOException e) {
+			
+			file.close();
+			throw e;
+			
+		}
+		
+		out.setLevel(level);
+		writer = new Thread(() -> write(out) , "Archive writer of " + path);
+		writer.setDaemon(true);
+		writer.start();
+		
+	}
+	
+	private static Manifest manifest() {
+		
+		Manifest manifest = new Manifest();
+		manifest.getMainAttributes().putValue("Manifest-Version" , "1.0");
+		return manifest;
+		
+	}
+	
+	/**
+	 * Adds an entry to be written, waiting if too many entries are already waiting.
+	 * 
+	 * @param entryPath  Path of the entry within the archive. Back slashes are taken as forward slashes, and leading slashes are left out.
+	 * @param contents  Bytes of the entry, which must not be changed afterward.
+	 * @throws IOException if writing the archive has already failed.
+	 * @throws InterruptedIOException if interrupted while waiting.
+	 * @throws IllegalStateException if the archive is closed.
+	 */
+	public void add(String entryPath , byte[] contents) throws IOException {
+		
+		if(closed) throw new IllegalStateException(path + " is closed.");
+		String name = entryPath.replace('\\' , '/');
+		while(name.startsWith("/")) name = name.substring(1);
+		if(name.startsWith("./")) name = name.substring(2);
+		
+		put(new Entry(name , contents));
+		if(failure != null) throw failure;
+		
+	}
+	
+	private void put(Entry entry) throws InterruptedIOException {
+		
+		try {
+			
+			queue.put(entry);
+			
+		} catch(InterruptedException e) {
+			
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting to add to " + path);
+			
+		}
+		
+	}
+	
+	/**
+	 * Runs on the thread of the archive, writing entries until {@link #END} is taken.
+	 */
+	private void write(ZipOutputStream archive) {
+		
+		List<Entry> batch = new ArrayList<>(QUEUE_SIZE);
+		boolean ended = false;
+		try {
+			
+			try(ZipOutputStream out = archive) {
+				
+				while(!ended) {
+					
+					batch.add(queue.take());
+					queue.drainTo(batch);
+					for(Entry x : batch) {
+						
+						if(ended = x == END) break;
+						if(failure != null) continue;
+						try {
+							
+							out.putNextEntry(new ZipEntry(x.path));
+							out.write(x.contents);
+							out.closeEntry();
+							
+						} catch(IOException | RuntimeException e) {
+							
+							//an entry the archive cannot take, such as one with too long a name, fails the archive rather than its thread
+							fail(e);
+							
+						}
+						
+					}
+					
+					//everything waiting has been written into the buffer, so it is handed to the file now rather than when the next batch fills it
+					if(!ended && failure == null) try {
+						
+						out.flush();
+						
+					} catch(IOException | RuntimeException e) {
+						
+						fail(e);
+						
+					}
+					
+					batch.clear();
+					
+				}
+				
+			} catch(Throwable e) {
+				
+				fail(e);
+				
+			}
+			
+			//entries are still taken until the archive is closed, so that no thread adding one waits forever for room
+			while(!ended) ended = queue.take() == END;
+			
+		} catch(InterruptedException e) {
+			
+			fail(new InterruptedIOException("Interrupted while writing " + path));
+			
+		}
+		
+	}
+	
+	/**
+	 * Records the first failure of the writing thread, which is thrown to every thread adding an entry from then on.
+	 */
+	private void fail(Throwable e) {
+		
+		if(failure == null) failure = e instanceof IOException ? (IOException)e : new IOException("Failed to write " + path , e);
+		
+	}
+	
+	/**
+	 * Writes every entry added so far, finishes the archive, and waits for its thread to end.
+	 * 
+	 * @throws IOException if any entry or the archive could not be written.
+	 */
+	@Override public synchronized void close() throws IOException {
+		
+		if(closed) return;
+		closed = true;
+		put(END);
+		try {
+			
+			writer.join();
+			
+		} catch(InterruptedException e) {
+			
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while finishing " + path);
+			
+		}
+		
+		if(failure != null) throw failure;
+		
+	}
+	
+}
@@ -0,0 +1,103 @@
+/**
+ * Licensed under MIT No Attribution.
+ */
+package sc.bjg;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.Deflater;
+
+/**
+ * Entrypoint class for generating many files in one run of BJG. The arguments of each job are given as they would be to {@link Run#main(String...)},
+ * and jobs are separated by {@code --}. The jobs are run at once in a {@link Pipeline}, which reads and writes files while parsing and performing
+ * tasks on a pool of threads, one per processor unless the arguments begin with {@code -threads} and a number. The arguments may also begin with
+ * {@code -queue} and the number of files read ahead, and of files waiting to be written, which is {@value Pipeline#DEFAULT_QUEUE_SIZE} otherwise.
+ * <p>
+ * 	For example, {@code -threads 4 -in A.java -o B -- -in C.java -o D} generates {@code B} from {@code A.java} and {@code D} from {@code C.java} on up
+ * 	to four threads.
+ * </p>
+ * <p>
+ * 	The arguments may also begin with {@code -archive} and a path, in which case every job adds its output to that zip or jar archive as an entry
+ * 	named by its output path, rather than writing a file, and with {@code -archivelevel} and a compression level from 0 to 9 for its entries.
+ * </p>
+ */
+public class Batch {
+
+	/**
+	 * The main method of batch runs.
+	 * 
+	 * @param args  Arguments to the application.
+	 * @throws IllegalStateException if any job failed, after every job has finished.
+	 * @throws InterruptedException if interrupted while waiting for jobs to finish.
+	 * @throws IOException if the archive cannot be written.
+	 */
+	public static void main(String... args) throws InterruptedException , IOException {
+
+		int threads = Runtime.getRuntime().availableProcessors();
+		int start = 0;
+		String archivePath = null;
+		int 
+			archiveLevel = Deflater.DEFAULT_COMPRESSION ,
+			queueSize = Pipeline.DEFAULT_QUEUE_SIZE;
+		
+		for( ; start + 1 < args.length ; start += 2) {
+			
+			if(args[start].equals("-threads")) {
+				
+				threads = Integer.parseInt(args[start + 1]);
+				if(threads < 1) throw new IllegalArgumentException("At least one thread is needed, but " + threads + " were given.");
+				
+			} else if(args[start].equals("-queue")) queueSize = Integer.parseInt(args[start + 1]);
+			else if(args[start].equals("-archive")) archivePath = args[start + 1];
+			else if(args[start].equals("-archivelevel")) archiveLevel = Integer.parseInt(args[start + 1]);
+			else break;
+			
+		}
+		
+		//every job is parsed before any runs so that a mistake in the arguments fails the batch before it writes anything
+		List<Job> jobs = new ArrayList<>();
+		for(String[] x : split(args , start)) jobs.add(Job.parse(x));
+		
+		Pipeline pipeline = new Pipeline(threads , queueSize);
+		try(ArchiveWriter archive = archivePath == null ? null : new ArchiveWriter(archivePath , archiveLevel)) {
+			
+			Throwable[] failures = pipeline.run(jobs , archive);
+			int failed = 0;
+			for(int i = 0 ; i < jobs.size() ; i++) if(failures[i] != null) {
+				
+				failed++;
+				System.err.println("Failed to generate " + jobs.get(i).outputPath() + " from " + jobs.get(i).inputPath() + ":");
+				failures[i].printStackTrace();
+				
+			}
+			
+			if(failed > 0) throw new IllegalStateException(failed + " of " + jobs.size() + " jobs failed.");
+			
+		}
+		
+	}
+	
+	/**
+	 * Splits arguments into the arguments of each job, which are separated by {@code --}.
+	 * 
+	 * @param args  Arguments to split.
+	 * @param start  Index of the first argument of the first job.
+	 * @return Arguments of each job, none of which are empty.
+	 */
+	static List<String[]> split(String[] args , int start) {
+		
+		List<String[]> jobs = new ArrayList<>();
+		for(int i = start ; i <= args.length ; i++) if(i == args.length || args[i].equals("--")) {
+			
+			if(i > start) jobs.add(Arrays.copyOfRange(args , start , i));
+			start = i + 1;
+			
+		}
+		
+		return jobs;
+		
+	}
+	
+}
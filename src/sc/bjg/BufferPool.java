@@ -0,0 +1,63 @@
+/**
+ * Licensed under MIT No Attribution.
+ */
+package sc.bjg;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of sets of direct byte buffers for writing files. Direct buffers are costly to allocate and are only freed by the garbage collector, so
+ * writers take a set from the pool and give it back when done. At most one set per processor is kept, so the pool never holds more buffers than
+ * could be in use at once.
+ */
+class BufferPool {
+
+	/**
+	 * Size of each buffer, and number of buffers in a set, which together are the most a writer hands to one gathering write.
+	 */
+	static final int 
+		BUFFER_SIZE = 1 << 16 ,
+		BUFFERS = 4;
+	
+	private static final int MAX_POOLED = Runtime.getRuntime().availableProcessors();
+	
+	private static final ConcurrentLinkedQueue<ByteBuffer[]> pooled = new ConcurrentLinkedQueue<>();
+	private static final AtomicInteger numberPooled = new AtomicInteger();
+	
+	/**
+	 * Takes a set of cleared buffers from the pool, or allocates one if the pool is empty.
+	 * 
+	 * @return Set of {@link #BUFFERS} buffers.
+	 */
+	static ByteBuffer[] acquire() {
+		
+		ByteBuffer[] buffers = pooled.poll();
+		if(buffers != null) {
+			
+			numberPooled.decrementAndGet();
+			return buffers;
+			
+		}
+		
+		buffers = new ByteBuffer[BUFFERS];
+		for(int i = 0 ; i < BUFFERS ; i++) buffers[i] = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		return buffers;
+		
+	}
+	
+	/**
+	 * Gives a set of buffers back to the pool. The buffers must not be used afterward.
+	 * 
+	 * @param buffers  Set of buffers taken from {@link #acquire()}.
+	 */
+	static void release(ByteBuffer[] buffers) {
+		
+		for(ByteBuffer x : buffers) x.clear();
+		if(numberPooled.incrementAndGet() <= MAX_POOLED) pooled.offer(buffers);
+		else numberPooled.decrementAndGet();
+		
+	}
+	
+}
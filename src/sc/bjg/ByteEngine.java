@@ -0,0 +1,434 @@
+/**
+ * Licensed under MIT No Attribution.
+ */
+package sc.bjg;
+
+import static sc.bjg.TextReader.lineFeed;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import sc.bjg.task.TextPlan;
+import sc.bjg.task.TextTask;
+
+/**
+ * Performs the tasks of a job on the bytes of a UTF-8 input, which is mapped into memory rather than read, and is never decoded. Flags are found
+ * by scanning the bytes with the UTF-8 bytes of the flag syntax, and the output is written as slices of the mapped input between the encoded texts
+ * tasks insert.
+ * <p>
+ * 	This works because UTF-8 is self synchronizing: the bytes of a token occur in the bytes of a text exactly where the token occurs in the text,
+ * 	so tasks whose tokens, offsets, and texts are all given in bytes edit the bytes just as they would edit the characters. The bytes are seen as
+ * 	characters of the same values, so that {@link FlagScanner} and {@link TextPlan} work on them unchanged.
+ * </p>
+ * <p>
+ * 	Only text that reads the same as its bytes is handled. Inputs that are not valid UTF-8, have line separators other than line feeds, or have
+ * 	tasks that cannot be performed in one pass of a {@link TextPlan} are left to the usual reader, before anything is written.
+ * </p>
+ */
+class ByteEngine {
+	
+	private static final byte[] LINE_FEED = {'\n'};
+	
+	/**
+	 * Returns the UTF-8 bytes of {@code text}, each as the character of the same value.
+	 * 
+	 * @param text  Text to encode.
+	 * @return Bytes of the text as characters.
+	 */
+	static char[] bytesAsChars(String text) {
+		
+		byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+		char[] chars = new char[bytes.length];
+		for(int i = 0 ; i < bytes.length ; i++) chars[i] = (char)(bytes[i] & 0xff);
+		return chars;
+		
+	}
+	
+	private static String bytesAsString(String text) {
+		
+		return new String(text.getBytes(StandardCharsets.UTF_8) , StandardCharsets.ISO_8859_1);
+		
+	}
+	
+	/**
+	 * Performs {@code arguments}' tasks on the input and writes the output, if both can be done on bytes.
+	 * 
+	 * @param inputPath  Path of the UTF-8 input.
+	 * @param outputPath  Path of the output, which is written as UTF-8.
+	 * @param syntax  Prefixes and suffixes of flags.
+	 * @param arguments  Arguments of the job.
+	 * @param licenseMessage  License message to write first, or null.
+	 * @param programmaticMessage  Programmatic message to write second, or null.
+	 * @param metrics  Measurements of the job.
+	 * @return Whether the output was written. If not, nothing was.
+	 * @throws IOException if the input cannot be read or the output cannot be written.
+	 * @throws IllegalArgumentException if two flags have the same ID.
+	 * @throws NumberFormatException if the ID of a flag or task is not a number, or is too large.
+	 */
+	static boolean write(
+		String inputPath ,
+		String outputPath ,
+		FlagSyntax syntax ,
+		List<RunArgument> arguments ,
+		String licenseMessage ,
+		String programmaticMessage ,
+		Metrics metrics
+	) throws IOException {
+		
+		//read text's line feeds are the line separator's first character, which bytes are only the same as where it is a line feed
+		if(lineFeed != '\n') return false;
+		try(FileChannel input = FileChannel.open(Paths.get(inputPath) , StandardOpenOption.READ)) {
+			
+			long size = input.size();
+			if(size >= Integer.MAX_VALUE) return false;
+			
+			Metrics.Phase phase = metrics.phase(Metrics.PARSE);
+			MappedText text = new MappedText(input.map(FileChannel.MapMode.READ_ONLY , 0 , size));
+			TokenTable tokens = scan(text , syntax);
+			phase.end();
+			if(tokens == null) return false;
+			
+			List<RunArgument> taskArguments = new ArrayList<>();
+			for(RunArgument x : arguments) if(x.type == RunArguments.REMOVE) taskArguments.add(x);
+			for(RunArgument x : arguments) if(x.type.isSafe) taskArguments.add(x);
+			
+			List<TextTask> tasks = new ArrayList<>(taskArguments.size());
+			List<String> operands = new ArrayList<>(taskArguments.size());
+			for(RunArgument x : taskArguments) {
+				
+				int index = tokens.indexOf(x.flagID());
+				//a missing token is reported by the usual reader
+				TextTask task = index < 0 ? null : task(x , tokens.get(index));
+				if(task == null) return false;
+				tasks.add(task);
+				operands.add(tokens.get(index).token());
+				
+			}
+			
+			phase = metrics.phase(Metrics.WRITE);
+			StringBuilder header = new StringBuilder();
+			if(licenseMessage != null) header.append(licenseMessage).append(lineFeed);
+			if(programmaticMessage != null) header.append(programmaticMessage).append(lineFeed);
+			TextPlan plan = TextPlan.over(text , operands);
+			try(Output output = new Output(outputPath , header.toString().getBytes(StandardCharsets.UTF_8) , text)) {
+				
+				if(!plan.renderSinglePass(tasks , output)) return false;
+				output.open();
+				
+			}
+			
+			phase.end();
+			metrics.flags(tokens.size());
+			//a plan does not set the occurrences of the tasks it renders, but one pass edits every occurrence the plan found
+			for(int i = 0 ; i < tasks.size() ; i++) {
+				
+				metrics.task(taskArguments.get(i).type , taskArguments.get(i).flagID() , plan.occurrences(operands.get(i)));
+				
+			}
+			return true;
+			
+		}
+		
+	}
+	
+	/**
+	 * Finds the flags of {@code text}, checking that it is valid UTF-8 whose only line separators are line feeds as it goes.
+	 * 
+	 * @return Table of the tokens found, or null if the text's bytes do not read the same as its characters.
+	 */
+	private static TokenTable scan(MappedText text , FlagSyntax syntax) {
+		
+		TokenTable tokens = new TokenTable(text);
+		FlagScanner scanner = new FlagScanner(syntax.utf8Bytes() , tokens);
+		UTF8Check check = new UTF8Check();
+		ByteBuffer bytes = text.bytes.duplicate();
+		byte[] chunk = new byte[TextReader.CHUNK_SIZE];
+		while(bytes.hasRemaining()) {
+			
+			int read = Math.min(chunk.length , bytes.remaining());
+			bytes.get(chunk , 0 , read);
+			if(!check.accepts(chunk , read)) return null;
+			scanner.scan(chunk , 0 , read);
+			
+		}
+		
+		if(!check.isComplete()) return null;
+		if(text.length() > text.size) scanner.scan(LINE_FEED , 0 , 1);
+		scanner.end();
+		return tokens;
+		
+	}
+	
+	/**
+	 * Creates the task of {@code argument} on the bytes of {@code token}, with its offset and text in bytes as well.
+	 * 
+	 * @return The task, or null if it cannot be performed on bytes.
+	 */
+	private static TextTask task(RunArgument argument , IDedToken token) {
+		
+		List<String> values = new ArrayList<>(argument.values);
+		switch(argument.type) {
+			
+			case REMOVE: break;
+			case INSERT:
+				
+				String chars = new String(token.token().getBytes(StandardCharsets.ISO_8859_1) , StandardCharsets.UTF_8);
+				int offset = Integer.parseInt(values.get(1));
+				//an offset outside the token, or between the halves of a surrogate pair, has no place in its bytes
+				if(offset < 0 || offset > chars.length() || (offset > 0 && offset < chars.length() && Character.isLowSurrogate(chars.charAt(offset)))) {
+					
+					return null;
+					
+				}
+				
+				values.set(1 , Integer.toString(chars.substring(0 , offset).getBytes(StandardCharsets.UTF_8).length));
+				values.set(2 , bytesAsString(values.get(2)));
+				break;
+			
+			case PREPEND: case REPLACE: case APPEND:
+				
+				values.set(1 , bytesAsString(values.get(1)));
+				break;
+			
+			default: return null;
+			
+		}
+		
+		return RunArgument.task(argument.type , values , null , ID -> token);
+		
+	}
+	
+	/**
+	 * Mapped bytes of a file, each as the character of the same value, ending in a line feed as read text does.
+	 */
+	private static class MappedText implements CharSequence {
+		
+		final MappedByteBuffer bytes;
+		final int
+			size ,
+			length;
+		
+		MappedText(MappedByteBuffer bytes) {
+			
+			this.bytes = bytes;
+			size = bytes.capacity();
+			length = size > 0 && bytes.get(size - 1) != '\n' ? size + 1 : size;
+			
+		}
+		
+		@Override public int length() {
+			
+			return length;
+			
+		}
+		
+		@Override public char charAt(int index) {
+			
+			return index < size ? (char)(bytes.get(index) & 0xff) : '\n';
+			
+		}
+		
+		@Override public CharSequence subSequence(int start , int end) {
+			
+			StringBuilder sequence = new StringBuilder(end - start);
+			for(int i = start ; i < end ; i++) sequence.append(charAt(i));
+			return sequence.toString();
+			
+		}
+		
+		@Override public String toString() {
+			
+			return subSequence(0 , length).toString();
+			
+		}
+		
+	}
+	
+	/**
+	 * Checks that bytes are UTF-8 that a reader would decode into the same characters, one piece at a time.
+	 */
+	private static class UTF8Check {
+		
+		private int
+			pending = 0 ,
+			codePoint ,
+			minimum;
+		
+		boolean accepts(byte[] bytes , int length) {
+			
+			for(int i = 0 ; i < length ; i++) {
+				
+				int x = bytes[i];
+				if(pending == 0) {
+					
+					if(x >= 0) {
+						
+						if(x == '\r') return false;
+						continue;
+						
+					}
+					
+					if((x & 0xe0) == 0xc0) start(1 , x & 0x1f , 0x80);
+					else if((x & 0xf0) == 0xe0) start(2 , x & 0x0f , 0x800);
+					else if((x & 0xf8) == 0xf0) start(3 , x & 0x07 , 0x10000);
+					else return false;
+					
+				} else {
+					
+					if((x & 0xc0) != 0x80) return false;
+					codePoint = codePoint << 6 | (x & 0x3f);
+					//overlong forms, surrogates, and line separators a reader would rewrite all read differently from their bytes
+					if(--pending == 0 && (
+						codePoint < minimum ||
+						codePoint > Character.MAX_CODE_POINT ||
+						(codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE) ||
+						codePoint == 0x85 ||
+						codePoint == 0x2028 ||
+						codePoint == 0x2029
+					)) return false;
+					
+				}
+				
+			}
+			
+			return true;
+			
+		}
+		
+		private void start(int pending , int codePoint , int minimum) {
+			
+			this.pending = pending;
+			this.codePoint = codePoint;
+			this.minimum = minimum;
+			
+		}
+		
+		boolean isComplete() {
+			
+			return pending == 0;
+			
+		}
+		
+	}
+	
+	/**
+	 * Output file, which is only created once something is appended to it, or it is opened, and begins with a header. Slices of the mapped text
+	 * too large for the buffer are written from the mapping itself, while other characters are written as the bytes of the same values.
+	 */
+	private static class Output implements Appendable , Closeable {
+		
+		private final String path;
+		private final byte[] header;
+		private final MappedText text;
+		private final ByteBuffer buffer = ByteBuffer.allocate(TextReader.CHUNK_SIZE);
+		private FileChannel channel;
+		
+		Output(String path , byte[] header , MappedText text) {
+			
+			this.path = path;
+			this.header = header;
+			this.text = text;
+			
+		}
+		
+		void open() throws IOException {
+			
+			if(channel != null) return;
+			channel = FileChannel.open(
+				Paths.get(path) ,
+				StandardOpenOption.WRITE ,
+				StandardOpenOption.CREATE ,
+				StandardOpenOption.TRUNCATE_EXISTING
+			);
+			
+			write(ByteBuffer.wrap(header));
+			
+		}
+		
+		@Override public Appendable append(CharSequence sequence) throws IOException {
+			
+			return append(sequence , 0 , sequence.length());
+			
+		}
+		
+		@Override public Appendable append(CharSequence sequence , int start , int end) throws IOException {
+			
+			open();
+			if(sequence != text) {
+				
+				for(int i = start ; i < end ; i++) append(sequence.charAt(i));
+				return this;
+				
+			}
+			
+			int mappedEnd = Math.min(end , text.size);
+			if(start < mappedEnd) {
+				
+				ByteBuffer slice = text.bytes.duplicate();
+				slice.limit(mappedEnd);
+				slice.position(start);
+				if(slice.remaining() <= buffer.remaining()) buffer.put(slice);
+				else {
+					
+					flush();
+					if(slice.remaining() < buffer.capacity()) buffer.put(slice);
+					else write(slice);
+					
+				}
+				
+			}
+			
+			if(end > text.size) append('\n');
+			return this;
+			
+		}
+		
+		@Override public Appendable append(char c) throws IOException {
+			
+			open();
+			if(!buffer.hasRemaining()) flush();
+			buffer.put((byte)c);
+			return this;
+			
+		}
+		
+		private void flush() throws IOException {
+			
+			buffer.flip();
+			write(buffer);
+			buffer.clear();
+			
+		}
+		
+		private void write(ByteBuffer bytes) throws IOException {
+			
+			while(bytes.hasRemaining()) channel.write(bytes);
+			
+		}
+		
+		@Override public void close() throws IOException {
+			
+			if(channel == null) return;
+			try {
+				
+				flush();
+				
+			} finally {
+				
+				channel.close();
+				
+			}
+			
+		}
+		
+	}
+	
+}
@@ -0,0 +1,91 @@
+/**
+ * Licensed under MIT No Attribution.
+ */
+package sc.bjg;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.List;
+
+/**
+ * Entrypoint class for asking a running {@link Daemon} to generate files. The arguments of each job are given as they would be to
+ * {@link Run#main(String...)}, and jobs are separated by {@code --}. They may begin with {@code -port} and a number to connect to a server on a port
+ * other than {@link Daemon#DEFAULT_PORT}. Relative paths are relative to the working directory of the client, not the server. Each job is sent with
+ * the server's secret, read from {@link Daemon#tokenFile(int)}, so the client must be run by the user who started the server.
+ * <p>
+ * 	All jobs are sent over one connection before any answer is read, so a script can generate any number of files for the cost of starting one
+ * 	small JVM.
+ * </p>
+ */
+public class Client {
+
+	/**
+	 * The main method of the client.
+	 * 
+	 * @param args  Arguments to the client.
+	 * @throws IOException if the server cannot be reached or its secret cannot be read.
+	 * @throws IllegalStateException if the server failed any job, after every job has been answered.
+	 */
+	public static void main(String... args) throws IOException {
+		
+		int port = Daemon.port(args);
+		int start = args.length > 1 && args[0].equals("-port") ? 2 : 0;
+		
+		List<String[]> jobs = Batch.split(args , start);
+		
+		String directory = System.getProperty("user.dir");
+		String token = Daemon.readToken(port);
+		try(
+			Socket socket = new Socket(InetAddress.getLoopbackAddress() , port) ;
+			DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream())) ;
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))
+		) {
+			
+			//requests are written on their own thread so that neither side blocks on a full socket buffer while the other waits for it
+			Thread sender = new Thread(() -> {
+				
+				try {
+					
+					for(String[] x : jobs) {
+						
+						Daemon.writeString(out , token);
+						Daemon.writeString(out , directory);
+						out.writeInt(x.length);
+						for(String y : x) Daemon.writeString(out , y);
+						
+					}
+					
+					out.flush();
+					socket.shutdownOutput();
+					
+				} catch(IOException e) {
+					
+					e.printStackTrace();
+					
+				}
+				
+			});
+			
+			sender.start();
+			
+			int failed = 0;
+			for(String[] x : jobs) if(!in.readBoolean()) {
+				
+				failed++;
+				System.err.println("Failed to run " + String.join(" " , x) + ":");
+				System.err.print(Daemon.readString(in));
+				
+			}
+			
+			if(failed > 0) throw new IllegalStateException(failed + " of " + jobs.size() + " jobs failed.");
+			
+		}
+		
+	}
+	
+}
@@ -0,0 +1,241 @@
+/**
+ * Licensed under MIT No Attribution.
+ */
+package sc.bjg;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.AclEntry;
+import java.nio.file.attribute.AclEntryPermission;
+import java.nio.file.attribute.AclEntryType;
+import java.nio.file.attribute.AclFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Entrypoint class for running BJG as a server, which keeps one JVM running and generates files as it is asked to by {@link Client}s. This saves
+ * every generation the time it takes to start and warm up a JVM.
+ * <p>
+ * 	The server listens on the loopback address only, on port {@link #DEFAULT_PORT} unless the arguments are {@code -port} and a number. Each
+ * 	connection sends any number of requests, each being the working directory of the client and the arguments of one job, as given to
+ * 	{@link Run#main(String...)}. Each request is parsed into its own {@link Job}, so requests never share configuration, and each is answered with
+ * 	whether it succeeded and, if it did not, why. Connections are served at once on a pool of threads, one per processor.
+ * </p>
+ * <p>
+ * 	As a request names files to read and write with the permissions of the server's user, every request must also carry a secret the server
+ * 	makes up when it starts. The secret is written to {@link #tokenFile(int)}, which only the server's user may read, so that only that user's
+ * 	clients can send it. A request with any other secret is refused and its connection closed.
+ * </p>
+ */
+public class Daemon {
+
+	/**
+	 * Port the server listens on, and clients connect to, if none is given.
+	 */
+	public static final int DEFAULT_PORT = 47_414;
+	
+	/**
+	 * The main method of the server. It returns only if the server socket cannot be opened or fails.
+	 * 
+	 * @param args  Arguments to the server.
+	 * @throws IOException if the server socket cannot be opened or accepting a connection fails.
+	 */
+	public static void main(String... args) throws IOException {
+		
+		int port = port(args);
+		ExecutorService pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+		Path tokenFile = tokenFile(port);
+		try(ServerSocket server = new ServerSocket(port , 50 , InetAddress.getLoopbackAddress())) {
+			
+			byte[] token = writeToken(tokenFile);
+			System.out.println("BJG listening on " + server.getLocalSocketAddress());
+			while(true) {
+				
+				Socket connection = server.accept();
+				pool.execute(() -> serve(connection , token));
+				
+			}
+			
+		} finally {
+			
+			pool.shutdownNow();
+			Files.deleteIfExists(tokenFile);
+			
+		}
+		
+	}
+	
+	/**
+	 * Returns the port given by {@code -port} as the first two of {@code args}, or {@link #DEFAULT_PORT}.
+	 * 
+	 * @param args  Arguments to the server or a client.
+	 * @return Port number.
+	 */
+	static int port(String[] args) {
+		
+		return args.length > 1 && args[0].equals("-port") ? Integer.parseInt(args[1]) : DEFAULT_PORT;
+		
+	}
+	
+	/**
+	 * Returns the file the secret of the server listening on {@code port} is written to, in the {@code .bjg} directory of the user's home.
+	 * 
+	 * @param port  Port of the server.
+	 * @return Path of the secret.
+	 */
+	static Path tokenFile(int port) {
+		
+		return Paths.get(System.getProperty("user.home") , ".bjg" , "daemon-" + port + ".token");
+		
+	}
+	
+	/**
+	 * Makes up a new secret and writes it to {@code file}, which is created anew so that only the owner may read or write it.
+	 */
+	private static byte[] writeToken(Path file) throws IOException {
+		
+		byte[] random = new byte[32];
+		new SecureRandom().nextBytes(random);
+		StringBuilder hex = new StringBuilder(random.length * 2);
+		for(byte x : random) hex.append(Character.forDigit((x >> 4) & 0xf , 16)).append(Character.forDigit(x & 0xf , 16));
+		byte[] token = hex.toString().getBytes(StandardCharsets.UTF_8);
+		
+		Files.createDirectories(file.getParent());
+		Files.deleteIfExists(file);
+		if(file.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+			
+			Files.createFile(file , PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+			
+		} else {
+			
+			Files.createFile(file);
+			AclFileAttributeView acl = Files.getFileAttributeView(file , AclFileAttributeView.class);
+			if(acl == null) throw new IOException("Cannot make " + file + " readable by its owner only.");
+			acl.setAcl(Collections.singletonList(AclEntry.newBuilder()
+				.setType(AclEntryType.ALLOW)
+				.setPrincipal(acl.getOwner())
+				.setPermissions(AclEntryPermission.values())
+				.build()
+			));
+			
+		}
+		
+		Files.write(file , token);
+		return token;
+		
+	}
+	
+	/**
+	 * Reads the secret of the server listening on {@code port}, which a client sends with each request.
+	 * 
+	 * @param port  Port of the server.
+	 * @return The secret.
+	 * @throws IOException if the secret cannot be read, as when no server is listening on {@code port} or it belongs to another user.
+	 */
+	static String readToken(int port) throws IOException {
+		
+		return new String(Files.readAllBytes(tokenFile(port)) , StandardCharsets.UTF_8);
+		
+	}
+	
+	private static void serve(Socket connection , byte[] token) {
+		
+		try(
+			Socket socket = connection ; 
+			DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream())) ;
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))
+		) {
+			
+			while(true) {
+				
+				int secretLength;
+				try {
+					
+					secretLength = in.readInt();
+					
+				} catch(EOFException e) {
+					
+					//the client has sent all of its requests
+					return;
+					
+				}
+				
+				//the length is checked before anything is read, so that a stranger cannot make the server allocate what it likes
+				byte[] secret = new byte[secretLength == token.length ? secretLength : 0];
+				in.readFully(secret);
+				if(!MessageDigest.isEqual(token , secret)) {
+					
+					out.writeBoolean(false);
+					writeString(out , "Refused a request without the secret of this server.\n");
+					out.flush();
+					return;
+					
+				}
+				
+				String directory = readString(in);
+				String[] args = new String[in.readInt()];
+				for(int i = 0 ; i < args.length ; i++) args[i] = readString(in);
+				
+				String failure = null;
+				try {
+					
+					Job.parse(directory , args).run();
+					
+				} catch(Throwable e) {
+					
+					//any failure, errors included, is the request's alone and is answered, so that the client is never left waiting
+					StringWriter trace = new StringWriter();
+					e.printStackTrace(new PrintWriter(trace));
+					failure = trace.toString();
+					
+				}
+				
+				out.writeBoolean(failure == null);
+				if(failure != null) writeString(out , failure);
+				out.flush();
+				
+			}
+			
+		} catch(IOException e) {
+			
+			//the client went away, and there is no one left to tell
+			e.printStackTrace();
+			
+		}
+		
+	}
+	
+	static String readString(DataInputStream in) throws IOException {
+		
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return new String(bytes , StandardCharsets.UTF_8);
+		
+	}
+	
+	static void writeString(DataOutputStream out , String string) throws IOException {
+		
+		byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+		
+	}
+	
+}
@@ -0,0 +1,220 @@
+/**
+ * Licensed under MIT No Attribution.
+ */
+package sc.bjg;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Directory of the flags parsed from text files, so that a file which has not changed since it was last read need not be tokenized again.
+ * <p>
+ * 	Each file read with a given flag syntax, default charset, and line separator has one entry, holding the IDs, tokens, and offsets of its
+ * 	flags, as the same file decoded otherwise has other offsets. An entry is used without reading the file at all if the file's modification
+ * 	time and size are those stored in the entry. Otherwise the file is hashed as it is read, and the entry is used only if the hash matches the
+ * 	one stored in it. Entries are replaced atomically, so any number of readers may share one directory.
+ * </p>
+ */
+public class FlagCache {
+
+	private static final int 
+		MAGIC = 0x424A4743 ,
+		VERSION = 3;
+	
+	private final Path directory;
+	
+	/**
+	 * Creates a flag cache in {@code directory}, creating the directory if it does not exist.
+	 * 
+	 * @param directory  Path of the directory to keep entries in.
+	 * @throws UncheckedIOException if the directory cannot be created.
+	 */
+	public FlagCache(String directory) {
+		
+		this.directory = Paths.get(directory);
+		try {
+			
+			Files.createDirectories(this.directory);
+			
+		} catch(IOException e) {
+			
+			throw new UncheckedIOException(e);
+			
+		}
+		
+	}
+	
+	/**
+	 * A cache entry as read from the cache directory.
+	 */
+	static class Entry {
+		
+		final long 
+			modified ,
+			size;
+		
+		final byte[] digest;
+		final TokenTable tokens;
+		
+		Entry(long modified , long size , byte[] digest , TokenTable tokens) {
+			
+			this.modified = modified;
+			this.size = size;
+			this.digest = digest;
+			this.tokens = tokens;
+			
+		}
+		
+		boolean matches(long modified , long size) {
+			
+			return this.modified == modified && this.size == size;
+			
+		}
+		
+		boolean matches(byte[] digest) {
+			
+			return Arrays.equals(this.digest , digest);
+			
+		}
+		
+	}
+	
+	/**
+	 * Reads the entry for the given file and syntax.
+	 * 
+	 * @param source  File whose flags are wanted.
+	 * @param syntax  Syntax of the flags.
+	 * @return The entry, or null if there is none or it cannot be read.
+	 */
+	Entry read(Path source , FlagSyntax syntax) {
+		
+		Path entry = entryPath(source , syntax);
+		if(!Files.isRegularFile(entry)) return null;
+		try(DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(entry)))) {
+			
+			if(in.readInt() != MAGIC || in.readInt() != VERSION) return null;
+			long modified = in.readLong();
+			long size = in.readLong();
+			byte[] digest = new byte[in.readUnsignedByte()];
+			in.readFully(digest);
+			
+			TokenTable tokens = new TokenTable();
+			for(int i = in.readInt() ; i > 0 ; i--) {
+				
+				long ID = in.readLong();
+				long offset = in.readLong();
+				char[] token = new char[in.readInt()];
+				for(int j = 0 ; j < token.length ; j++) token[j] = in.readChar();
+				tokens.add(ID , new String(token) , offset);
+				
+			}
+			
+			return new Entry(modified , size , digest , tokens);
+			
+		} catch(IOException | RuntimeException e) {
+			
+			//a damaged entry is no worse than a missing one
+			return null;
+			
+		}
+		
+	}
+	
+	/**
+	 * Writes the entry for the given file and syntax, replacing any existing entry.
+	 * 
+	 * @param source  File the flags were read from.
+	 * @param syntax  Syntax of the flags.
+	 * @param modified  Modification time of the file, in milliseconds.
+	 * @param size  Size of the file in bytes.
+	 * @param digest  Hash of the contents of the file.
+	 * @param tokens  Flags of the file.
+	 */
+	void write(Path source , FlagSyntax syntax , long modified , long size , byte[] digest , TokenTable tokens) {
+		
+		Path entry = entryPath(source , syntax);
+		Path temporary = null;
+		try {
+			
+			temporary = Files.createTempFile(directory , entry.getFileName().toString() , ".tmp");
+			try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+				
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeLong(modified);
+				out.writeLong(size);
+				out.writeByte(digest.length);
+				out.write(digest);
+				out.writeInt(tokens.size());
+				for(int i = 0 ; i < tokens.size() ; i++) {
+					
+					out.writeLong(tokens.ID(i));
+					out.writeLong(tokens.offset(i));
+					out.writeInt(tokens.token(i).length());
+					out.writeChars(tokens.token(i));
+					
+				}
+				
+			}
+			
+			Files.move(temporary , entry , StandardCopyOption.REPLACE_EXISTING , StandardCopyOption.ATOMIC_MOVE);
+			
+		} catch(IOException e) {
+			
+			//an entry which cannot be written only costs the next reader a parse
+			try {
+				
+				if(temporary != null) Files.deleteIfExists(temporary);
+				
+			} catch(IOException ignored) {}
+			
+		}
+		
+	}
+	
+	private Path entryPath(Path source , FlagSyntax syntax) {
+		
+		MessageDigest key = newDigest();
+		key.update((
+			source.toAbsolutePath().normalize() + "\0" + syntax.key() + "\0" + Charset.defaultCharset().name() + "\0" + TextReader.lineFeed
+		).getBytes(StandardCharsets.UTF_8));
+		StringBuilder name = new StringBuilder(64);
+		for(byte x : key.digest()) name.append(Character.forDigit((x >> 4) & 0xf , 16)).append(Character.forDigit(x & 0xf , 16));
+		return directory.resolve(name.append(".flags").toString());
+		
+	}
+	
+	/**
+	 * Creates the hash used for the contents of files.
+	 * 
+	 * @return New message digest.
+	 */
+	static MessageDigest newDigest() {
+		
+		try {
+			
+			return MessageDigest.getInstance("SHA-256");
+			
+		} catch(NoSuchAlgorithmException e) {
+			
+			//every Java platform is required to support SHA-256
+			throw new IllegalStateException(e);
+			
+		}
+		
+	}
+	
+}
@@ -0,0 +1,421 @@
+/**
+ * Licensed under MIT No Attribution.
+ */
+package sc.bjg;
+
+import static sc.bjg.TextReader.lineFeed;
+
+import java.util.Arrays;
+
+/**
+ * Finds flags and the tokens they identify in text which is given to it in pieces of any size. All state lives in the scanner, so a flag or token
+ * may be split across any number of pieces, and the memory used does not depend on how much text has been scanned.
+ * <p>
+ * 	Text is seen as a sequence of runs, a run being a stretch of non white space characters within one line. A line which is empty or ends in
+ * 	white space also has an empty run at its end. A flag ending a run identifies all of the following run up to its first forward slash, any other
+ * 	flag identifies the characters after it up to the next forward slash. Either way, another flag may begin at that forward slash. Tokens
+ * 	identified by such a chain of flags are recorded last to first.
+ * </p>
+ * <p>
+ * 	Flags of every pair of prefix and suffix of the scanner's syntax are found in the same pass, by walking the syntax's automaton of prefixes,
+ * 	so a prefix is found even right after characters that began another. The suffix looked for after an ID is the one paired with the prefix the
+ * 	flag began with. An ID is one or more ASCII digits, and a flag whose ID has any other character is not a flag.
+ * </p>
+ * <p>
+ * 	Text may also be given as bytes, each of which is scanned as the character of the same value, so that a scanner whose syntax is
+ * 	{@link FlagSyntax#utf8Bytes()} finds the flags of UTF-8 text without decoding it, at offsets counted in bytes.
+ * </p>
+ */
+class FlagScanner {
+
+	private static final int
+		SEEK_PREFIX = 0 ,
+		READ_ID = 1 ,
+		SEEK_SUFFIX = 2 ,
+		FLAGGED = 3 ,
+		AWAIT_RUN = 4 ,
+		READ_TOKEN = 5 ,
+		SKIP_RUN = 6;
+
+	private final FlagSyntax syntax;
+	private final TokenTable record;
+
+	/**
+	 * Suffix of the flag being read.
+	 */
+	private char[] suffix;
+
+	/**
+	 * Digits of the ID being read, which are only parsed as a whole if the ID is too large for a long.
+	 */
+	private final StringBuilder
+		IDDigits = new StringBuilder() ,
+		token = new StringBuilder();
+
+	/**
+	 * IDs, offsets, lengths, and tokens of the current chain of flags, which are recorded together once the chain ends. Tokens are only made into
+	 * strings if the table they are recorded in keeps them.
+	 */
+	private long[]
+		chainIDs = new long[4] ,
+		chainOffsets = new long[4];
+
+	private int[] chainLengths = new int[4];
+	private String[] chainTokens = new String[4];
+
+	/**
+	 * IDs of every flag read, in order, if the scanner was asked to keep them, or null.
+	 */
+	private long[] flagged;
+
+	/**
+	 * Node of the trie of prefixes reached while seeking a prefix, or the index of the next character of the suffix while seeking one.
+	 */
+	private int
+		state = SEEK_PREFIX ,
+		xxxfixIndex = 0 ,
+		chainLength = 0 ,
+		numberFlagged = 0;
+
+	private long
+		ID ,
+		flaggedID ,
+		position ,
+		tokenOffset;
+
+	private boolean
+		digitsOnly ,
+		fitsLong;
+
+	/**
+	 * Creates a flag scanner.
+	 *
+	 * @param syntax  Prefixes and suffixes of flags.
+	 * @param record  Table to record each identified token in.
+	 */
+	FlagScanner(FlagSyntax syntax , TokenTable record) {
+
+		this(syntax , record , 0 , false);
+
+	}
+
+	/**
+	 * Creates a flag scanner for text that begins partway into a larger text, at the start of a line.
+	 *
+	 * @param syntax  Prefixes and suffixes of flags.
+	 * @param record  Table to record each identified token in.
+	 * @param position  Offset in the larger text of the first character to be scanned.
+	 * @param keepFlagged  Whether to keep the ID of every flag read, including flags that end up identifying nothing.
+	 */
+	FlagScanner(FlagSyntax syntax , TokenTable record , long position , boolean keepFlagged) {
+
+		this.syntax = syntax;
+		this.record = record;
+		this.position = position;
+		if(keepFlagged) flagged = new long[16];
+
+	}
+
+	/**
+	 * Creates the exception thrown when a flag has the same ID as a flag that identified a token before it.
+	 *
+	 * @param ID  The repeated ID.
+	 * @return New exception.
+	 */
+	static IllegalArgumentException repeatedID(long ID) {
+
+		return new IllegalArgumentException(ID + " already identifies a token.");
+
+	}
+
+	/**
+	 * Scans the next piece of text.
+	 *
+	 * @param chars  Array containing the text.
+	 * @param from  Index of the first character to scan.
+	 * @param to  Index one past the last character to scan.
+	 * @throws IllegalArgumentException if a flag has the same ID as one seen before it.
+	 * @throws NumberFormatException if the ID of a flag is too large.
+	 */
+	void scan(char[] chars , int from , int to) {
+
+		for(int i = from ; i < to ; i++ , position++) scan(chars[i]);
+
+	}
+
+	/**
+	 * Scans the next piece of text given as bytes, each of which is scanned as the character of the same value.
+	 *
+	 * @param bytes  Array containing the text.
+	 * @param from  Index of the first byte to scan.
+	 * @param to  Index one past the last byte to scan.
+	 * @throws IllegalArgumentException if a flag has the same ID as one seen before it.
+	 * @throws NumberFormatException if the ID of a flag is too large.
+	 */
+	void scan(byte[] bytes , int from , int to) {
+
+		for(int i = from ; i < to ; i++ , position++) scan((char)(bytes[i] & 0xff));
+
+	}
+
+	/**
+	 * Finishes scanning, recording any token that was still being read.
+	 */
+	void end() {
+
+		if(state == AWAIT_RUN) state = SEEK_PREFIX;
+		else endRun();
+		endChain();
+
+	}
+
+	/**
+	 * Returns whether the scanner is in the state it starts in, so that scanning any text after this point finds the same flags as a new scanner
+	 * would.
+	 *
+	 * @return Whether nothing scanned so far bears on what comes next.
+	 */
+	boolean isReset() {
+
+		return state == SEEK_PREFIX && xxxfixIndex == 0 && chainLength == 0;
+
+	}
+
+	/**
+	 * Returns the number of flags read, if the scanner keeps them.
+	 *
+	 * @return Number of flags read.
+	 */
+	int numberFlagged() {
+
+		return numberFlagged;
+
+	}
+
+	/**
+	 * Returns the ID of a flag read, if the scanner keeps them.
+	 *
+	 * @param index  Index of the flag, in the order flags were read.
+	 * @return ID of the flag.
+	 */
+	long flagged(int index) {
+
+		return flagged[index];
+
+	}
+
+	private void scan(char next) {
+
+		boolean isWhiteSpace = next == ' ' || next == '\t' || next == lineFeed;
+
+		if(state == AWAIT_RUN) {
+
+			//the run after a flag is empty if its line ends before anything else is found, and then the flag identifies nothing
+			if(next == lineFeed) {
+
+				state = SEEK_PREFIX;
+				endChain();
+
+			} else if(!isWhiteSpace) {
+
+				token.setLength(0);
+				tokenOffset = position;
+				state = READ_TOKEN;
+				readToken(next);
+
+			}
+
+			return;
+
+		}
+
+		if(isWhiteSpace) {
+
+			endRun();
+			return;
+
+		}
+
+		switch(state) {
+
+			case SEEK_PREFIX: seekPrefix(next); break;
+			case READ_ID:
+
+				if(next == suffix[0]) {
+
+					if(IDDigits.length() == 0) state = SKIP_RUN;
+					else if(suffix.length == 1) flag();
+					else {
+
+						state = SEEK_SUFFIX;
+						xxxfixIndex = 1;
+
+					}
+
+				} else readID(next);
+				break;
+
+			case SEEK_SUFFIX:
+
+				if(next != suffix[xxxfixIndex++]) state = SKIP_RUN;
+				else if(xxxfixIndex == suffix.length) flag();
+				break;
+
+			case FLAGGED:
+
+				token.setLength(0);
+				tokenOffset = position;
+				state = READ_TOKEN;
+				readToken(next);
+				break;
+
+			case READ_TOKEN: readToken(next); break;
+			default: break;
+
+		}
+
+	}
+
+	private void seekPrefix(char next) {
+
+		xxxfixIndex = syntax.follow(xxxfixIndex , next);
+		int pair = syntax.prefixEnding(xxxfixIndex);
+		if(pair >= 0) {
+
+			suffix = syntax.suffixes[pair];
+			state = READ_ID;
+			ID = 0;
+			digitsOnly = true;
+			fitsLong = true;
+			IDDigits.setLength(0);
+
+		}
+
+	}
+
+	private void readID(char next) {
+
+		if(next < '0' || next > '9') {
+
+			digitsOnly = false;
+			return;
+
+		}
+
+		int digit = next - '0';
+		//an ID too large for a long is left for Long.parseLong to reject
+		if(ID > (Long.MAX_VALUE - digit) / 10) fitsLong = false;
+		else ID = ID * 10 + digit;
+		IDDigits.append(next);
+
+	}
+
+	private void readToken(char next) {
+
+		if(next != '/') {
+
+			token.append(next);
+			return;
+
+		}
+
+		addToChain();
+		state = SEEK_PREFIX;
+		xxxfixIndex = 0;
+		seekPrefix(next);
+
+	}
+
+	/**
+	 * Called once the suffix of a flag has been read.
+	 */
+	private void flag() {
+
+		if(!digitsOnly) {
+
+			state = SKIP_RUN;
+			return;
+
+		}
+
+		long flagID = fitsLong ? ID : Long.parseLong(IDDigits.toString());
+
+		boolean repeated = record.indexOf(flagID) >= 0;
+		for(int i = 0 ; i < chainLength ; i++) repeated |= chainIDs[i] == flagID;
+		if(repeated) throw repeatedID(flagID);
+		if(flagged != null) {
+
+			if(numberFlagged == flagged.length) flagged = Arrays.copyOf(flagged , numberFlagged * 2);
+			flagged[numberFlagged++] = flagID;
+
+		}
+
+		flaggedID = flagID;
+		state = FLAGGED;
+
+	}
+
+	private void endRun() {
+
+		switch(state) {
+
+			case READ_ID:
+				//a suffix of one character is assumed to be present when the run ends in the ID
+				if(suffix.length == 1 && IDDigits.length() > 0) flag();
+				if(state == FLAGGED) state = AWAIT_RUN;
+				if(state == AWAIT_RUN) return;
+				break;
+
+			case FLAGGED:
+
+				state = AWAIT_RUN;
+				return;
+
+			case READ_TOKEN:
+
+				addToChain();
+				break;
+
+			default: break;
+
+		}
+
+		state = SEEK_PREFIX;
+		xxxfixIndex = 0;
+		endChain();
+
+	}
+
+	private void addToChain() {
+
+		if(chainLength == chainIDs.length) {
+
+			chainIDs = Arrays.copyOf(chainIDs , chainLength * 2);
+			chainOffsets = Arrays.copyOf(chainOffsets , chainLength * 2);
+			chainLengths = Arrays.copyOf(chainLengths , chainLength * 2);
+			chainTokens = Arrays.copyOf(chainTokens , chainLength * 2);
+
+		}
+
+		chainIDs[chainLength] = flaggedID;
+		chainOffsets[chainLength] = tokenOffset;
+		chainLengths[chainLength] = token.length();
+		chainTokens[chainLength++] = record.keepsTokens() ? token.toString() : null;
+
+	}
+
+	private void endChain() {
+
+		xxxfixIndex = 0;
+		for(int i = chainLength - 1 ; i >= 0 ; i--) {
+
+			record.add(chainIDs[i] , chainTokens[i] , chainOffsets[i] , chainLengths[i]);
+			chainTokens[i] = null;
+
+		}
+
+		chainLength = 0;
+
+	}
+
+}
@@ -0,0 +1,384 @@
+/**
+ * Licensed under MIT No Attribution.
+ */
+package sc.bjg;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Prefix and suffix that surround the ID of a flag, or several such pairs, any of which a flag may be written with. Flag syntaxes are immutable,
+ * so one may be shared between any number of readers.
+ * <p>
+ * 	The prefixes of a syntax are compiled into an Aho-Corasick automaton once, when it is created, which scanners walk a character at a time to
+ * 	find flags of every pair in one pass. Node 0 is the root. A scanner that cannot follow a character from a node falls back along the node's
+ * 	failure links, to the node of the longest end of the prefix read so far that begins another prefix, and follows the character from there.
+ * 	So a prefix is found wherever it is written, even right after the start of another prefix, or of itself, that goes no further.
+ * </p>
+ * <p>
+ * 	No prefix of a syntax may contain another, as the shorter would always be found first, and the flags of the longer never would.
+ * </p>
+ */
+public class FlagSyntax {
+
+	/**
+	 * The syntax used when none is given, which makes flags look like / *__10__* /, without the spaces.
+	 */
+	public static final FlagSyntax DEFAULT = new FlagSyntax("/*__" , "__*/");
+
+	final char[][]
+		prefixes ,
+		suffixes;
+
+	/**
+	 * Characters leaving each node of the trie of prefixes, and the nodes they lead to.
+	 */
+	private final char[][] edges;
+	private final int[][] targets;
+
+	/**
+	 * Node of the longest proper suffix of each node's characters that is also a node of the trie, the root's being the root.
+	 */
+	private final int[] failures;
+
+	/**
+	 * Index of the pair whose prefix ends at each node of the trie, or -1 where none does.
+	 */
+	private final int[] ends;
+
+	/**
+	 * Creates a flag syntax.
+	 *
+	 * @param prefix  Characters every flag begins with.
+	 * @param suffix  Characters every flag ends with.
+	 * @throws IllegalArgumentException if {@code prefix} or {@code suffix} is empty or contains white space, which is not allowed for prefix or
+	 * 									suffix flags.
+	 * @throws NullPointerException if either parameter is null.
+	 */
+	public FlagSyntax(String prefix , String suffix) {
+
+		this(new char[][] {xxxfix(prefix)} , new char[][] {xxxfix(suffix)});
+
+	}
+
+	private FlagSyntax(char[][] prefixes , char[][] suffixes) {
+
+		this.prefixes = prefixes;
+		this.suffixes = suffixes;
+
+		List<char[]> edges = new ArrayList<>();
+		List<int[]> targets = new ArrayList<>();
+		List<Integer> ends = new ArrayList<>();
+		edges.add(new char[0]);
+		targets.add(new int[0]);
+		ends.add(-1);
+		for(int i = 0 ; i < prefixes.length ; i++) {
+
+			int node = 0;
+			for(char x : prefixes[i]) {
+
+				if(ends.get(node) >= 0) throw overlap(ends.get(node) , i);
+				int next = follow(edges.get(node) , targets.get(node) , x);
+				if(next < 0) {
+
+					next = edges.size();
+					edges.set(node , append(edges.get(node) , x));
+					targets.set(node , append(targets.get(node) , next));
+					edges.add(new char[0]);
+					targets.add(new int[0]);
+					ends.add(-1);
+
+				}
+
+				node = next;
+
+			}
+
+			if(ends.get(node) >= 0) throw overlap(ends.get(node) , i);
+			if(edges.get(node).length > 0) {
+
+				int longer = node;
+				while(ends.get(longer) < 0) longer = targets.get(longer)[0];
+				throw overlap(i , ends.get(longer));
+
+			}
+
+			ends.set(node , i);
+
+		}
+
+		this.edges = edges.toArray(new char[0][]);
+		this.targets = targets.toArray(new int[0][]);
+		this.ends = new int[ends.size()];
+		for(int i = 0 ; i < this.ends.length ; i++) this.ends[i] = ends.get(i);
+
+		//failures lead to shallower nodes, so taking nodes shallowest first finds each failure from failures already found
+		failures = new int[this.ends.length];
+		int[] parents = new int[this.ends.length];
+		char[] entries = new char[this.ends.length];
+		for(int node = 0 ; node < this.edges.length ; node++) for(int i = 0 ; i < this.edges[node].length ; i++) {
+
+			parents[this.targets[node][i]] = node;
+			entries[this.targets[node][i]] = this.edges[node][i];
+
+		}
+
+		for(int node : nodesByDepth()) if(node != 0) {
+
+			failures[node] = parents[node] == 0 ? 0 : follow(failures[parents[node]] , entries[node]);
+
+			//a prefix ending within another would always be found first, and the flags of the longer never would
+			if(this.ends[failures[node]] >= 0) {
+
+				int longer = node;
+				while(this.ends[longer] < 0) longer = this.targets[longer][0];
+				throw overlap(this.ends[failures[node]] , this.ends[longer]);
+
+			}
+
+		}
+
+	}
+
+	/**
+	 * Returns every node of the trie, shallowest first.
+	 */
+	private int[] nodesByDepth() {
+
+		int[] order = new int[ends.length];
+		int size = 1;
+		for(int i = 0 ; i < size ; i++) for(int x : targets[order[i]]) order[size++] = x;
+		return order;
+
+	}
+
+	private IllegalArgumentException overlap(int first , int second) {
+
+		return new IllegalArgumentException(
+			"The flag prefixes " + new String(prefixes[first]) + " and " + new String(prefixes[second]) + " cannot be used together, as one contains " +
+			"the other."
+		);
+
+	}
+
+	private static char[] append(char[] array , char element) {
+
+		char[] appended = Arrays.copyOf(array , array.length + 1);
+		appended[array.length] = element;
+		return appended;
+
+	}
+
+	private static int[] append(int[] array , int element) {
+
+		int[] appended = Arrays.copyOf(array , array.length + 1);
+		appended[array.length] = element;
+		return appended;
+
+	}
+
+	private static int follow(char[] edges , int[] targets , char next) {
+
+		for(int i = 0 ; i < edges.length ; i++) if(edges[i] == next) return targets[i];
+		return -1;
+
+	}
+
+	/**
+	 * Returns the node of the trie of prefixes that {@code next} leads to from {@code node}, falling back along failure links until a node has an
+	 * edge for {@code next}, or the root is reached.
+	 *
+	 * @param node  Node reached so far, 0 being the root.
+	 * @param next  Character read.
+	 * @return Node reached, which is the root if no prefix begins with {@code next}, or with any end of the characters read before it.
+	 */
+	int follow(int node , char next) {
+
+		while(true) {
+
+			int target = follow(edges[node] , targets[node] , next);
+			if(target >= 0) return target;
+			if(node == 0) return 0;
+			node = failures[node];
+
+		}
+
+	}
+
+	/**
+	 * Returns the pair whose prefix ends at {@code node}.
+	 *
+	 * @param node  Node of the trie of prefixes.
+	 * @return Index of the pair, or -1 if no prefix ends at the node.
+	 */
+	int prefixEnding(int node) {
+
+		return ends[node];
+
+	}
+
+	/**
+	 * Returns a flag syntax finding flags written with any pair of this syntax or of {@code other}, in one pass.
+	 *
+	 * @param other  Syntax to find flags of as well.
+	 * @return New flag syntax.
+	 * @throws IllegalArgumentException if a prefix of either syntax contains, or is, a prefix of the other, as the flags of the longer prefix
+	 * 									would then never be found.
+	 */
+	public FlagSyntax or(FlagSyntax other) {
+
+		char[][]
+			prefixes = Arrays.copyOf(this.prefixes , size() + other.size()) ,
+			suffixes = Arrays.copyOf(this.suffixes , size() + other.size());
+
+		System.arraycopy(other.prefixes , 0 , prefixes , size() , other.size());
+		System.arraycopy(other.suffixes , 0 , suffixes , size() , other.size());
+		return new FlagSyntax(prefixes , suffixes);
+
+	}
+
+	/**
+	 * Returns a syntax whose prefixes and suffixes are the UTF-8 bytes of this syntax's, each as the character of the same value, for scanning
+	 * UTF-8 text byte by byte. As no byte of a character of more than one byte is white space or a digit, it finds the same flags in the bytes of a
+	 * text as this syntax finds in its characters.
+	 *
+	 * @return Syntax of the bytes of flags.
+	 */
+	FlagSyntax utf8Bytes() {
+
+		char[][]
+			prefixes = new char[size()][] ,
+			suffixes = new char[size()][];
+
+		for(int i = 0 ; i < size() ; i++) {
+
+			prefixes[i] = ByteEngine.bytesAsChars(prefix(i));
+			suffixes[i] = ByteEngine.bytesAsChars(suffix(i));
+
+		}
+
+		return new FlagSyntax(prefixes , suffixes);
+
+	}
+
+	/**
+	 * Returns the number of prefix and suffix pairs of this syntax.
+	 *
+	 * @return Number of pairs.
+	 */
+	public int size() {
+
+		return prefixes.length;
+
+	}
+
+	private static char[] xxxfix(String newChars) {
+
+		char[] chars = Objects.requireNonNull(newChars).toCharArray();
+		if(chars.length == 0) throw new IllegalArgumentException("Flags cannot have an empty prefix or suffix.");
+		for(char x : chars) if(TextReader.isWhiteSpace(x)) {
+
+			throw new IllegalArgumentException("Flags cannot contain white space characters; " + newChars + " does.");
+
+		}
+
+		return chars;
+
+	}
+
+	/**
+	 * Returns a flag syntax with this syntax's first suffix and the given prefix, and no other pairs.
+	 *
+	 * @param prefix  Characters every flag begins with.
+	 * @return New flag syntax.
+	 * @throws IllegalArgumentException if {@code prefix} is empty or contains white space.
+	 */
+	public FlagSyntax withPrefix(String prefix) {
+
+		return new FlagSyntax(prefix , suffix());
+
+	}
+
+	/**
+	 * Returns a flag syntax with this syntax's first prefix and the given suffix, and no other pairs.
+	 *
+	 * @param suffix  Characters every flag ends with.
+	 * @return New flag syntax.
+	 * @throws IllegalArgumentException if {@code suffix} is empty or contains white space.
+	 */
+	public FlagSyntax withSuffix(String suffix) {
+
+		return new FlagSyntax(prefix() , suffix);
+
+	}
+
+	/**
+	 * Returns the characters flags of the first pair begin with.
+	 *
+	 * @return Prefix of flags.
+	 */
+	public String prefix() {
+
+		return prefix(0);
+
+	}
+
+	/**
+	 * Returns the characters flags of the first pair end with.
+	 *
+	 * @return Suffix of flags.
+	 */
+	public String suffix() {
+
+		return suffix(0);
+
+	}
+
+	/**
+	 * Returns the characters flags of a pair begin with.
+	 *
+	 * @param index  Index of the pair, in the order the pairs were joined by {@link #or(FlagSyntax)}.
+	 * @return Prefix of flags.
+	 */
+	public String prefix(int index) {
+
+		return new String(prefixes[index]);
+
+	}
+
+	/**
+	 * Returns the characters flags of a pair end with.
+	 *
+	 * @param index  Index of the pair, in the order the pairs were joined by {@link #or(FlagSyntax)}.
+	 * @return Suffix of flags.
+	 */
+	public String suffix(int index) {
+
+		return new String(suffixes[index]);
+
+	}
+
+	/**
+	 * Returns every prefix and suffix of this syntax, each followed by a null character but the last, to tell syntaxes apart in keys.
+	 *
+	 * @return Key of this syntax.
+	 */
+	String key() {
+
+		StringBuilder key = new StringBuilder();
+		for(int i = 0 ; i < size() ; i++) key.append(i == 0 ? "" : "\0").append(prefix(i)).append('\0').append(suffix(i));
+		return key.toString();
+
+	}
+
+	@Override public String toString() {
+
+		StringBuilder pairs = new StringBuilder();
+		for(int i = 0 ; i < size() ; i++) pairs.append(i == 0 ? "" : " ").append(prefix(i)).append('#').append(suffix(i));
+		return pairs.toString();
+
+	}
+
+}
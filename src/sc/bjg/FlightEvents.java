@@ -0,0 +1,100 @@
+/**
+ * Licensed under MIT No Attribution.
+ */
+package sc.bjg;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Events of {@link Metrics} committed to Java Flight Recorder. This is the only class of BJG using the {@code jdk.jfr} module, and
+ * {@link Metrics} only loads it where the JVM has that module.
+ */
+final class FlightEvents extends Metrics.Events {
+
+	@Name("sc.bjg.Phase") @Label("BJG Phase") @Category("BJG")
+	static class PhaseEvent extends Event {
+		
+		@Label("Input") String input;
+		@Label("Phase") String phase;
+		@Label("Allocated") @DataAmount long allocated;
+		
+	}
+
+	@Name("sc.bjg.Flags") @Label("BJG Flags") @Category("BJG")
+	static class FlagsEvent extends Event {
+		
+		@Label("Input") String input;
+		@Label("Flags Found") int flags;
+		
+	}
+	
+	@Name("sc.bjg.Task") @Label("BJG Task") @Category("BJG")
+	static class TaskEvent extends Event {
+		
+		@Label("Input") String input;
+		@Label("Task") String task;
+		@Label("Flag ID") long ID;
+		@Label("Occurrences Rewritten") int occurrences;
+		
+	}
+	
+	@Override Object beginPhase() {
+		
+		PhaseEvent event = new PhaseEvent();
+		event.begin();
+		return event;
+		
+	}
+	
+	@Override void endPhase(Object phase , String input , String name , long allocated) {
+		
+		PhaseEvent event = (PhaseEvent)phase;
+		event.end();
+		if(event.shouldCommit()) {
+			
+			event.input = input;
+			event.phase = name;
+			event.allocated = allocated;
+			event.commit();
+			
+		}
+		
+	}
+	
+	@Override void flags(String input , int flags) {
+		
+		FlagsEvent event = new FlagsEvent();
+		if(event.shouldCommit()) {
+			
+			event.input = input;
+			event.flags = flags;
+			event.commit();
+			
+		}
+		
+	}
+	
+	@Override boolean recordsTasks() {
+		
+		return new TaskEvent().isEnabled();
+		
+	}
+	
+	@Override boolean task(String input , String task , long ID , int occurrences) {
+		
+		TaskEvent event = new TaskEvent();
+		if(!event.shouldCommit()) return false;
+		event.input = input;
+		event.task = task;
+		event.ID = ID;
+		event.occurrences = occurrences;
+		event.commit();
+		return true;
+		
+	}
+	
+}
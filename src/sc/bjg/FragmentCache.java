@@ -0,0 +1,161 @@
+/**
+ * Licensed under MIT No Attribution.
+ */
+package sc.bjg;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Templates included into others, each parsed once and shared by every job of this JVM that includes it, so that a batch or a daemon parses a
+ * fragment once however many files include it. A fragment is parsed again only once its file's modification time or size changes, and is parsed
+ * separately for each flag syntax and charset it is read with.
+ * <p>
+ * 	Any number of threads may get fragments at once. A fragment asked for while another thread is parsing it waits for that parse rather than
+ * 	starting its own. The fragments kept are bounded by their total length, and those used least recently are dropped first.
+ * </p>
+ */
+class FragmentCache {
+	
+	/**
+	 * Total number of characters of the fragments kept by {@link #shared}.
+	 */
+	static final long MAX_CHARS = 1 << 24;
+	
+	/**
+	 * Cache shared by every job.
+	 */
+	static final FragmentCache shared = new FragmentCache(MAX_CHARS);
+	
+	private static class Entry {
+		
+		final FutureTask<Template> parse;
+		long chars;
+		
+		Entry(FutureTask<Template> parse) {
+			
+			this.parse = parse;
+			
+		}
+		
+	}
+	
+	private final long maxChars;
+	
+	/**
+	 * Fragments by file, flag syntax, charset, modification time, and size, in order of use, least recent first. Guarded by this cache.
+	 */
+	private final LinkedHashMap<String , Entry> entries = new LinkedHashMap<>(16 , 0.75f , true);
+	private long chars = 0;
+	
+	/**
+	 * Creates a fragment cache.
+	 * 
+	 * @param maxChars  Total number of characters of the fragments to keep.
+	 */
+	FragmentCache(long maxChars) {
+		
+		this.maxChars = maxChars;
+		
+	}
+	
+	/**
+	 * Returns the fragment at {@code path}, parsing it only if it is not kept or its file has changed.
+	 * 
+	 * @param path  Path of the fragment.
+	 * @param syntax  Prefix and suffix of flags.
+	 * @param charset  Charset of the fragment, which is that of the input including it.
+	 * @return The fragment.
+	 * @throws IOException if the fragment cannot be read.
+	 * @throws IllegalArgumentException if two flags of the fragment have the same ID.
+	 */
+	Template get(String path , FlagSyntax syntax , Charset charset) throws IOException {
+		
+		Path file = Paths.get(path).toAbsolutePath().normalize();
+		BasicFileAttributes attributes = Files.readAttributes(file , BasicFileAttributes.class);
+		String key = file + "\0" + syntax.key() + "\0" + charset.name() + "\0" + attributes.lastModifiedTime().toMillis() + "\0" +
+			attributes.size();
+		
+		Entry entry;
+		boolean parses = false;
+		synchronized(this) {
+			
+			entry = entries.get(key);
+			if(entry == null) {
+				
+				entry = new Entry(new FutureTask<>(() -> Template.compile(
+					new String(Files.readAllBytes(file) , charset) ,
+					syntax
+				)));
+				
+				entries.put(key , entry);
+				parses = true;
+				
+			}
+			
+		}
+		
+		if(parses) entry.parse.run();
+		Template fragment;
+		try {
+			
+			fragment = entry.parse.get();
+			
+		} catch(ExecutionException e) {
+			
+			synchronized(this) {
+				
+				entries.remove(key , entry);
+				
+			}
+			
+			Throwable cause = e.getCause();
+			if(cause instanceof IOException) throw (IOException)cause;
+			if(cause instanceof RuntimeException) throw (RuntimeException)cause;
+			if(cause instanceof Error) throw (Error)cause;
+			throw new UncheckedIOException(new IOException(cause));
+			
+		} catch(InterruptedException e) {
+			
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for " + path + " to be parsed." , e);
+			
+		}
+		
+		if(parses) synchronized(this) {
+			
+			//the entry is only counted once parsed, and may already have been dropped by then
+			if(entries.get(key) == entry) {
+				
+				entry.chars = fragment.text().length();
+				chars += entry.chars;
+				
+			}
+			
+			Iterator<Map.Entry<String , Entry>> leastRecent = entries.entrySet().iterator();
+			while(chars > maxChars && leastRecent.hasNext()) {
+				
+				Entry dropped = leastRecent.next().getValue();
+				if(dropped == entry) continue;
+				chars -= dropped.chars;
+				leastRecent.remove();
+				
+			}
+			
+		}
+		
+		return fragment;
+		
+	}
+	
+}
@@ -8,13 +8,17 @@ package sc.bjg;
  */
 public class IDedToken {
 	
-	final long ID;
+	final long 
+		ID ,
+		offset;
+	
 	final String token;
 	
-	IDedToken(long ID , String token){
+	IDedToken(long ID , String token , long offset){
 		 
 		this.ID = ID;
 		this.token = token;
+		this.offset = offset;
 		
 	}
 	
@@ -40,6 +44,18 @@ public class IDedToken {
 		
 	}
 
+	/**
+	 * Returns the offset of the first character of the token this {@code IDedToken} represents in the text it was read from. Line separators of that
+	 * text count as one character each, as they do once read.
+	 * 
+	 * @return Offset of this token.
+	 */
+	public long offset() {
+		
+		return offset;
+		
+	}
+
 	@Override public String toString() {
 		
 		return "Token of ID: " + ID + " with name: " + token;
@@ -0,0 +1,878 @@
+/**
+ * Licensed under MIT No Attribution.
+ */
+package sc.bjg;
+
+import static java.lang.String.format;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.Deflater;
+
+import sc.bjg.task.EditableText;
+import sc.bjg.task.PositionalEngine;
+import sc.bjg.task.ReplaceTask;
+import sc.bjg.task.TaskEngine;
+import sc.bjg.task.TextPlan;
+import sc.bjg.task.TextTask;
+
+/**
+ * One generation of an output file from an input file, as described by one list of arguments. Everything a job is configured with lives in the
+ * job, so any number of jobs can run at once without affecting each other.
+ */
+class Job {
+
+	/**
+	 * Parses a list of arguments into a job.
+	 * 
+	 * @param args  Arguments describing the job, as given to {@link Run#main(String...)}.
+	 * @return Job described by {@code args}.
+	 * @throws IllegalStateException if an argument which can be given once is given more than once, or no input file is given.
+	 * @throws java.util.NoSuchElementException if an argument is not recognized.
+	 */
+	static Job parse(String... args) {
+		
+		return parse(null , args);
+		
+	}
+	
+	/**
+	 * Parses a list of arguments into a job whose relative file paths are relative to {@code directory}.
+	 * 
+	 * @param directory  Directory to resolve relative paths against, or null to leave them relative to the working directory.
+	 * @param args  Arguments describing the job, as given to {@link Run#main(String...)}.
+	 * @return Job described by {@code args}.
+	 * @throws IllegalStateException if an argument which can be given once is given more than once, or no input file is given.
+	 * @throws java.util.NoSuchElementException if an argument is not recognized.
+	 */
+	static Job parse(String directory , String... args) {
+		
+		List<RunArgument> arguments = new ArrayList<>(args.length * 2);
+		int[] instances = new int[RunArguments.values().length];
+		
+		for(int i = 0 ; i < args.length ; i++) {
+			
+			String x = args[i];
+			
+			if(x.charAt(0) == '-') {
+				
+				RunArguments type = RunArguments.enumForArgument(x.substring(1));
+				if(!type.allowsInstances(++instances[type.ordinal()])) {
+					
+					throw new IllegalStateException(format("Only %d %s argument can be given." , 1 , type.toString()));
+					
+				}
+				
+				arguments.add(new RunArgument(type));
+				
+			} else arguments.get(arguments.size() - 1).addArgument(x);
+						
+		}
+		
+		if(instances[RunArguments.IN.ordinal()] < 1) throw new IllegalStateException("No input file given.") ;
+		return new Job(directory , arguments);
+		
+	}
+	
+	private final List<RunArgument> arguments;
+	
+	/**
+	 * Directory relative paths are resolved against, which fragments are included from when their paths are read.
+	 */
+	private final String directory;
+	private final FlagSyntax syntax;
+	private final FlagCache cache;
+	private final ResultCache results;
+	private final Manifest manifest;
+	private final String 
+		metricsPath ,
+		tablePath;
+	
+	/**
+	 * Primitive types to specialize the template for, each in a variant of its own, or null.
+	 */
+	private final List<Primitive> primitives;
+	
+	private final Charset outputCharset;
+	private final String 
+		inputPath ,
+		outputPath ,
+		licenseMessage ,
+		programmaticMessage;
+	
+	/**
+	 * Path of the archive outputs are written into as entries, or null to write them as files, and the output path as given, which names the
+	 * entries.
+	 */
+	private final String 
+		archivePath ,
+		entryPath;
+	
+	private final int archiveLevel;
+	
+	/**
+	 * Whether to read the input with {@link TextReader#lowMemory(String, FlagSyntax)}, which only applies to jobs writing one output without
+	 * streaming, and bypasses the flag cache.
+	 */
+	private final boolean 
+		stream ,
+		positional ,
+		lowMemory;
+	
+	/**
+	 * Whether the input is UTF-8, in which case its tasks are performed on its mapped bytes by a {@link ByteEngine} where they can be, and the
+	 * output is UTF-8 unless another charset is given.
+	 */
+	private final boolean bytes;
+	private final Charset inputCharset;
+	
+	private Job(String directory , List<RunArgument> arguments) {
+		
+		this.arguments = arguments;
+		this.directory = directory;
+		inputPath = resolve(directory , first(RunArguments.IN).get().nextArgument());
+		stream = first(RunArguments.STREAM).isPresent();
+		positional = first(RunArguments.POSITIONAL).isPresent();
+		lowMemory = first(RunArguments.LOW_MEMORY).isPresent();
+		bytes = first(RunArguments.BYTES).isPresent();
+		inputCharset = bytes ? StandardCharsets.UTF_8 : Charset.defaultCharset();
+		if(bytes && stream) throw new IllegalStateException("An input read as bytes is mapped whole, so it cannot be streamed.");
+		if(bytes && lowMemory) throw new IllegalStateException(
+			"An input read as bytes is mapped rather than read into a text, so it cannot also be read in low memory mode."
+		);
+		
+		if(stream && positional) throw new IllegalStateException("Positional tasks cannot be streamed, as streaming does not keep offsets.");
+
+		FlagSyntax syntax = FlagSyntax.DEFAULT;
+		Optional<RunArgument> prefix = first(RunArguments.SET_FLAG_PREFIX);
+		if(prefix.isPresent()) syntax = syntax.withPrefix(prefix.get().nextArgument());
+		Optional<RunArgument> suffix = first(RunArguments.SET_FLAG_SUFFIX);
+		if(suffix.isPresent()) syntax = syntax.withSuffix(suffix.get().nextArgument());
+		//flags of every added syntax are found in the same pass as those of the first
+		for(RunArgument x : arguments) if(x.type == RunArguments.ADD_FLAG_SYNTAX) syntax = syntax.or(new FlagSyntax(x.values.get(0) , x.values.get(1)));
+		this.syntax = syntax;
+		
+		Optional<RunArgument> cache = first(RunArguments.CACHE);
+		this.cache = cache.isPresent() ? new FlagCache(resolve(directory , cache.get().nextArgument())) : null;
+		
+		Optional<RunArgument> results = first(RunArguments.RESULT_CACHE);
+		Optional<RunArgument> resultsSize = first(RunArguments.RESULT_CACHE_SIZE);
+		long megabytes = resultsSize.isPresent() ? Long.parseLong(resultsSize.get().nextArgument()) : ResultCache.DEFAULT_MEGABYTES;
+		this.results = results.isPresent() ? ResultCache.shared(resolve(directory , results.get().nextArgument()) , megabytes << 20) : null;
+		
+		Optional<RunArgument> manifest = first(RunArguments.MANIFEST);
+		this.manifest = manifest.isPresent() ? new Manifest(resolve(directory , manifest.get().nextArgument())) : null;
+		
+		Optional<RunArgument> metrics = first(RunArguments.METRICS);
+		metricsPath = metrics.isPresent() ? resolve(directory , metrics.get().nextArgument()) : null;
+		
+		Optional<RunArgument> table = first(RunArguments.TABLE);
+		tablePath = table.isPresent() ? resolve(directory , table.get().nextArgument()) : null;
+		Optional<RunArgument> specialize = first(RunArguments.SPECIALIZE);
+		primitives = specialize.isPresent() ? Primitive.list(specialize.get().nextArgument()) : null;
+		if(tablePath != null && primitives != null) throw new IllegalStateException("A job cannot both read a table and specialize its template.");
+		if((tablePath != null || primitives != null) && stream) throw new IllegalStateException("A table of variants cannot be streamed.");
+		
+		Optional<RunArgument> outputCharset = first(RunArguments.OUTPUT_CHARSET);
+		this.outputCharset = outputCharset.isPresent() ? Charset.forName(outputCharset.get().nextArgument()) : inputCharset;
+		
+		Optional<RunArgument> license = first(RunArguments.LICENSE);
+		licenseMessage = license.isPresent() ? license.get().nextArgument() : null;
+		Optional<RunArgument> note = first(RunArguments.NOTE);
+		programmaticMessage = note.isPresent() ? note.get().nextArgument() : ResultWriter.DEFAULT_PROGRAMMATIC_MESSAGE;
+		
+		Optional<RunArgument> output = first(RunArguments.O);
+		String outputPath = output.isPresent() ? output.get().nextArgument() : Run.getOutputName();
+		Optional<RunArgument> fileType = first(RunArguments.FILE_TYPE);
+		if(fileType.isPresent()) outputPath += fileType.get().nextArgument();
+		this.outputPath = resolve(directory , outputPath);
+		entryPath = outputPath;
+		
+		Optional<RunArgument> archive = first(RunArguments.ARCHIVE);
+		archivePath = archive.isPresent() ? resolve(directory , archive.get().nextArgument()) : null;
+		if(archivePath != null && stream) throw streamedIntoArchive();
+		Optional<RunArgument> archiveLevel = first(RunArguments.ARCHIVE_LEVEL);
+		this.archiveLevel = archiveLevel.isPresent() ? Integer.parseInt(archiveLevel.get().nextArgument()) : Deflater.DEFAULT_COMPRESSION;
+		
+	}
+	
+	private static IllegalStateException streamedIntoArchive() {
+		
+		return new IllegalStateException("Streamed outputs cannot be written into an archive.");
+		
+	}
+	
+	private static String resolve(String directory , String path) {
+		
+		return directory == null ? path : Paths.get(directory).resolve(path).toString();
+		
+	}
+	
+	private Optional<RunArgument> first(RunArguments type) {
+		
+		return arguments.stream().filter(arg -> arg.type == type).findAny();
+		
+	}
+	
+	/**
+	 * Reads the input file, performs the tasks of this job on it, and writes the output file.
+	 * 
+	 * @throws IOException if the input file cannot be read or the output file cannot be written.
+	 */
+	void run() throws IOException {
+		
+		run(null , false , null);
+		
+	}
+	
+	/**
+	 * Reads the input file, performs the tasks of this job on it, and adds the output to {@code archive} as an entry named by the output path. A
+	 * job given an archive of its own writes into that one instead.
+	 * 
+	 * @param archive  Archive shared with other jobs, or null to write the output as a file.
+	 * @throws IOException if the input file cannot be read or the output cannot be written.
+	 */
+	void run(ArchiveWriter archive) throws IOException {
+		
+		run(null , false , archive);
+		
+	}
+	
+	/**
+	 * Output of a job whose tasks have been performed, ready to be written.
+	 */
+	static class Output {
+		
+		final byte[] bytes;
+		final Metrics metrics;
+		
+		private Output(byte[] bytes , Metrics metrics) {
+			
+			this.bytes = bytes;
+			this.metrics = metrics;
+			
+		}
+		
+	}
+	
+	/**
+	 * Returns whether this job can be run in the stages of {@link #readInput()}, {@link #transform(byte[])}, and {@link #write(Output, ArchiveWriter)},
+	 * which is the case unless it streams its input, reads it with little memory, generates a table of variants, uses a cache, or writes into an
+	 * archive of its own.
+	 * 
+	 * @return {@code true} if this job can be run in stages.
+	 */
+	boolean runsInStages() {
+		
+		return acceptsParsedInput() && cache == null && results == null && archivePath == null;
+		
+	}
+	
+	/**
+	 * Reads the bytes of the input file, which is the first stage of running this job, and the only one reading from disk.
+	 * 
+	 * @return Contents of the input file.
+	 * @throws IOException if the input file cannot be read.
+	 */
+	byte[] readInput() throws IOException {
+		
+		return Files.readAllBytes(Paths.get(inputPath));
+		
+	}
+	
+	/**
+	 * Parses the bytes of the input file, performs the tasks of this job on them, and encodes the result, which is the second stage of running this
+	 * job, and touches no file other than a manifest and included fragments.
+	 * 
+	 * @param input  Bytes given by {@link #readInput()}.
+	 * @return Output to write.
+	 * @throws IOException if the manifest or a fragment cannot be read.
+	 */
+	Output transform(byte[] input) throws IOException {
+		
+		Metrics metrics = new Metrics(inputPath , outputPath , metricsPath);
+		Metrics.Phase phase = metrics.phase(Metrics.PARSE);
+		TextReader reader = TextReader.decode(input , inputCharset , syntax);
+		phase.end();
+		metrics.flags(reader.numberTokens());
+		
+		EditableText text = perform(reader , metrics);
+		phase = metrics.phase(Metrics.ENCODE);
+		byte[] bytes = new ResultWriter(outputPath , text , licenseMessage , programmaticMessage , outputCharset).bytes();
+		phase.end();
+		return new Output(bytes , metrics);
+		
+	}
+	
+	/**
+	 * Writes an output to the output file, or adds it to {@code archive}, which is the last stage of running this job.
+	 * 
+	 * @param output  Output given by {@link #transform(byte[])}.
+	 * @param archive  Archive shared with other jobs, or null to write the output as a file.
+	 * @throws IOException if the output cannot be written.
+	 */
+	void write(Output output , ArchiveWriter archive) throws IOException {
+		
+		Metrics.Phase phase = output.metrics.phase(Metrics.WRITE);
+		if(archive != null) archive.add(entryPath , output.bytes);
+		else Files.write(Paths.get(outputPath) , output.bytes);
+		phase.end();
+		output.metrics.finish();
+		
+	}
+	
+	/**
+	 * Returns whether this job can be run with a reader of its input that was parsed ahead of time, which is the case unless it streams its input,
+	 * reads it with little memory or as bytes, or generates variants.
+	 * 
+	 * @return {@code true} if {@link #run(TextReader, boolean)} uses the reader it is given.
+	 */
+	boolean acceptsParsedInput() {
+		
+		return !stream && !lowMemory && !bytes && tablePath == null && primitives == null;
+		
+	}
+	
+	/**
+	 * Reads and parses the input file of this job, keeping its text.
+	 * 
+	 * @return Reader of the input.
+	 * @throws IOException if the input file cannot be read.
+	 */
+	TextReader parse() throws IOException {
+		
+		return new TextReader(inputPath , true , syntax , cache);
+		
+	}
+	
+	/**
+	 * Returns the flag syntax of this job.
+	 * 
+	 * @return Syntax of flags in the input.
+	 */
+	FlagSyntax syntax() {
+		
+		return syntax;
+		
+	}
+	
+	/**
+	 * Runs this job, optionally with a reader of its input already parsed, and optionally leaving the output file alone if it already holds exactly
+	 * what would be written to it.
+	 * 
+	 * @param parsed  Reader of the input given by {@link #parse()}, or null to read the input. It is only used if {@link #acceptsParsedInput()}.
+	 * @param onlyIfChanged  Whether to leave an output file whose bytes would not change as it is. Streamed outputs and archives are always
+	 * 						  written.
+	 * @return Whether the output file was written.
+	 * @throws IOException if the input file cannot be read or the output file cannot be written.
+	 */
+	boolean run(TextReader parsed , boolean onlyIfChanged) throws IOException {
+		
+		return run(parsed , onlyIfChanged , null);
+		
+	}
+	
+	private boolean run(TextReader parsed , boolean onlyIfChanged , ArchiveWriter archive) throws IOException {
+		
+		if(archivePath != null) try(ArchiveWriter own = new ArchiveWriter(archivePath , archiveLevel)) {
+			
+			return write(parsed , false , own);
+			
+		}
+		
+		return write(parsed , onlyIfChanged , archive);
+		
+	}
+	
+	private boolean write(TextReader parsed , boolean onlyIfChanged , ArchiveWriter archive) throws IOException {
+		
+		if(tablePath != null || primitives != null) {
+			
+			runVariants(archive);
+			return true;
+			
+		}
+		
+		if(stream && archive != null) throw streamedIntoArchive();
+		Metrics metrics = new Metrics(inputPath , outputPath , metricsPath);
+		Metrics.Phase phase;
+		String key = null;
+		if(results != null) {
+			
+			phase = metrics.phase(Metrics.REUSE);
+			key = resultKey();
+			Path entry = results.find(key);
+			Boolean written = null;
+			if(entry != null && archive != null) try {
+				
+				archive.add(entryPath , Files.readAllBytes(entry));
+				written = true;
+				
+			} catch(NoSuchFileException e) {
+				
+				//the entry was evicted since it was found
+				
+			} else if(entry != null) written = ResultCache.copy(entry , Paths.get(outputPath));
+			phase.end();
+			if(written != null) {
+				
+				metrics.finish();
+				return written;
+				
+			}
+			
+		}
+		
+		boolean byteTasks = manifest == null && !positional && archive == null && !onlyIfChanged && outputCharset.equals(StandardCharsets.UTF_8);
+		if(bytes && byteTasks && ByteEngine.write(inputPath , outputPath , syntax , arguments , licenseMessage , programmaticMessage , metrics)) {
+			
+			if(key != null) results.store(key , Paths.get(outputPath));
+			metrics.finish();
+			return true;
+			
+		}
+		
+		phase = metrics.phase(Metrics.PARSE);
+		TextReader reader;
+		if(parsed != null && !stream) reader = parsed;
+		else if(bytes) reader = TextReader.decode(Files.readAllBytes(Paths.get(inputPath)) , inputCharset , syntax);
+		else if(lowMemory && !stream) reader = TextReader.lowMemory(inputPath , syntax);
+		else reader = new TextReader(inputPath , !stream , syntax , cache);
+		phase.end();
+		metrics.flags(reader.numberTokens());
+		
+		boolean written = true;
+		if(stream) {
+			
+			//when streaming, tasks are performed as the file is written, and never on a copy of the whole text
+			List<TextTask> tasks = new ArrayList<>();
+			addTasks(true , null , reader , metrics , true , tasks);
+			addTasks(false , null , reader , metrics , true , tasks);
+			phase = metrics.phase(Metrics.WRITE);
+			ResultWriter.stream(outputPath , inputPath , tasks , licenseMessage , programmaticMessage , outputCharset);
+			if(key != null) results.store(key , Paths.get(outputPath));
+			phase.end();
+			
+		} else {
+			
+			EditableText copiedText = perform(reader , metrics);
+			phase = metrics.phase(Metrics.WRITE);
+			ResultWriter writer = new ResultWriter(outputPath , copiedText , licenseMessage , programmaticMessage , outputCharset);
+			if(archive != null) {
+				
+				byte[] contents = writer.write(archive , entryPath);
+				if(key != null) results.store(key , contents);
+				
+			} else {
+				
+				if(onlyIfChanged) written = writer.writeIfChanged();
+				else writer.write();
+				if(key != null) results.store(key , Paths.get(outputPath));
+				
+			}
+			
+			phase.end();
+			
+		}
+		
+		metrics.finish();
+		return written;
+		
+	}
+	
+	/**
+	 * Reads the input file once, and writes one output file for each row of the table of variants, performing the tasks of this job and of the row
+	 * on it. Variants are written at once on a pool of threads, one per processor. The output path is a pattern, in which {@code {name}},
+	 * {@code {index}}, and the name of any column in braces are replaced by the name, number, and cell of the row.
+	 * <p>
+	 * 	A job specializing its template has a row for each primitive type instead, made by
+	 * 	{@link VariantTable#specialize(List, List, TextReader)} from the flags of the input, and its arguments with placeholders are only performed
+	 * 	through that table.
+	 * </p>
+	 * 
+	 * @param archive  Archive to add each variant to as an entry, named by the output path as given, or null to write files.
+	 * @throws IOException if the input file or table cannot be read.
+	 * @throws IllegalStateException if any variant failed, after every variant has finished, or if variants would share an output file.
+	 */
+	private void runVariants(ArchiveWriter archive) throws IOException {
+		
+		Metrics metrics = new Metrics(inputPath , outputPath , metricsPath);
+		Metrics.Phase phase = metrics.phase(Metrics.PARSE);
+		TextReader reader = new TextReader(inputPath , true , syntax , cache);
+		List<String> operands = new ArrayList<>(reader.numberTokens());
+		reader.forEachToken(token -> operands.add(token.token()));
+		TextPlan plan = positional ? null : new TextPlan(reader.sourceFile , operands);
+		phase.end();
+		metrics.flags(reader.numberTokens());
+		VariantTable table = primitives != null ? VariantTable.specialize(primitives , arguments , reader) : VariantTable.read(tablePath);
+		
+		//every path is resolved before any variant is written, so that a pattern naming no column, or a column repeating a cell, writes nothing
+		Map<Path , Integer> rowsByPath = new HashMap<>();
+		for(int i = 0 ; i < table.size() ; i++) {
+			
+			Path path = Paths.get(variantPath(outputPath , table , i)).toAbsolutePath().normalize();
+			Integer other = rowsByPath.putIfAbsent(path , i);
+			if(other != null) throw new IllegalStateException(
+				"Variants " + table.name(other) + " and " + table.name(i) + " would both be written to " + path + ". The output of a table of " + 
+				"variants needs a pattern, such as {name} or {index}, that differs from row to row."
+			);
+			
+		}
+		
+		//tasks of the manifest are made once and shared by every variant, as performing a task does not change what it does
+		List<TextTask> 
+			manifestRemovals = new ArrayList<>() ,
+			manifestSafeTasks = new ArrayList<>();
+		
+		if(manifest != null) {
+			
+			manifest.forEachBatch(true , null , reader , null , manifestRemovals::addAll);
+			manifest.forEachBatch(false , null , reader , null , manifestSafeTasks::addAll);
+			
+		}
+		
+		phase = metrics.phase(Metrics.WRITE);
+		ExecutorService pool = Executors.newFixedThreadPool(Math.min(table.size() , Runtime.getRuntime().availableProcessors()) + 1);
+		List<Future<?>> results = new ArrayList<>(table.size());
+		try {
+			
+			for(int i = 0 ; i < table.size() ; i++) {
+				
+				int row = i;
+				results.add(pool.submit(() -> {
+					
+					List<RunArgument> rowArguments = new ArrayList<>();
+					for(RunArgument x : arguments) if(primitives == null || !Primitive.isTemplate(x)) rowArguments.add(x.copy());
+					rowArguments.addAll(table.arguments(row));
+					
+					List<TextTask> tasks = new ArrayList<>();
+					addTasks(true , rowArguments , null , reader , null , tasks);
+					tasks.addAll(manifestRemovals);
+					addTasks(false , rowArguments , null , reader , null , tasks);
+					tasks.addAll(manifestSafeTasks);
+					
+					EditableText result;
+					if(positional) {
+						
+						result = new EditableText(reader.sourceFile);
+						new PositionalEngine(result , tasks).run();
+						
+					} else {
+						
+						StringBuilder rendered = new StringBuilder(reader.sourceFile.length());
+						plan.render(tasks , rendered);
+						result = new EditableText(rendered);
+						
+					}
+					
+					ResultWriter writer = new ResultWriter(variantPath(outputPath , table , row) , result , licenseMessage , programmaticMessage , outputCharset);
+					if(archive != null) writer.write(archive , variantPath(entryPath , table , row));
+					else writer.write();
+					return null;
+					
+				}));
+				
+			}
+			
+			int failed = 0;
+			for(int i = 0 ; i < table.size() ; i++) try {
+				
+				results.get(i).get();
+				
+			} catch(ExecutionException e) {
+				
+				failed++;
+				System.err.println("Failed to generate variant " + table.name(i) + " of " + inputPath + ":");
+				e.getCause().printStackTrace();
+				
+			} catch(InterruptedException e) {
+				
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while generating variants of " + inputPath , e);
+				
+			}
+			
+			if(failed > 0) throw new IllegalStateException(failed + " of " + table.size() + " variants failed.");
+			
+		} finally {
+			
+			pool.shutdownNow();
+			
+		}
+		
+		phase.end();
+		metrics.finish();
+		
+	}
+	
+	private static String variantPath(String pattern , VariantTable table , int row) {
+		
+		StringBuilder path = new StringBuilder(pattern.length() + 16);
+		for(int i = 0 ; i < pattern.length() ; i++) {
+			
+			int close = pattern.indexOf('}' , i);
+			String cell = null;
+			if(pattern.charAt(i) == '{' && close != -1) {
+				
+				String placeholder = pattern.substring(i + 1 , close);
+				if(placeholder.equals(VariantTable.NAME)) cell = table.name(row);
+				else if(placeholder.equals("index")) cell = Integer.toString(row + 1);
+				else cell = table.cell(row , placeholder);
+				
+			}
+			
+			if(cell == null) path.append(pattern.charAt(i));
+			else {
+				
+				path.append(cell);
+				i = close;
+				
+			}
+			
+		}
+		
+		return path.toString();
+		
+	}
+	
+	/**
+	 * Performs the tasks of this job on the text of {@code reader}, which must have been read without streaming.
+	 */
+	private EditableText perform(TextReader reader , Metrics metrics) throws IOException {
+		
+		//a low memory reader's text is edited as it is
+		EditableText copiedText = reader.text();
+		if(copiedText == null) {
+			
+			Metrics.Phase phase = metrics.phase(Metrics.COPY);
+			copiedText = new EditableText(reader.sourceFile);
+			phase.end();
+			
+		}
+		
+		//tasks of a manifest are made and run a batch at a time, unless every task is needed at once, or tokens are read from the text being edited
+		boolean batched = !positional && reader.text() == null;
+		List<TextTask> 
+			removeTasks = new ArrayList<>() ,
+			safeTasks = new ArrayList<>();
+		
+		addTasks(true , copiedText , reader , metrics , !batched , removeTasks);
+		addTasks(false , copiedText , reader , metrics , !batched , safeTasks);
+		
+		Metrics.Phase phase;
+		if(positional) {
+			
+			List<TextTask> tasks = new ArrayList<>(removeTasks);
+			tasks.addAll(safeTasks);
+			phase = metrics.phase(Metrics.POSITIONAL);
+			new PositionalEngine(copiedText , tasks).run();
+			phase.end();
+			
+		} else {
+			
+			//removals are finished before safe tasks begin, so each pass is measured on its own
+			phase = metrics.phase(Metrics.REMOVE);
+			new TaskEngine(copiedText , removeTasks).run();
+			if(batched) runManifest(true , copiedText , reader , metrics);
+			phase.end();
+			
+			phase = metrics.phase(Metrics.SAFE);
+			new TaskEngine(copiedText , safeTasks).run();
+			if(batched) runManifest(false , copiedText , reader , metrics);
+			phase.end();
+			
+		}
+		
+		//every task has been performed, so none is kept alive by the measurements while the text is written
+		metrics.settle();
+		return copiedText;
+		
+	}
+	
+	/**
+	 * Makes the remove tasks or the other tasks of this job given as arguments, followed by those of its manifest if {@code withManifest}.
+	 */
+	private void addTasks(
+		boolean removals , 
+		EditableText text , 
+		TextReader reader , 
+		Metrics metrics , 
+		boolean withManifest , 
+		List<TextTask> tasks
+	) throws IOException {
+		
+		addTasks(removals , arguments , text , reader , metrics , tasks);
+		if(withManifest && manifest != null) manifest.forEachBatch(removals , text , reader , metrics , tasks::addAll);
+		
+	}
+	
+	/**
+	 * Makes the remove tasks or the other tasks of {@code arguments}. An include becomes a replacement of its flag's token by the fragment it
+	 * names, rendered with the tasks of {@code arguments} whose flags are found in that fragment rather than in {@code reader}, and without the
+	 * line feed ending it. Such tasks are left out of those performed on the text of {@code reader}.
+	 */
+	private void addTasks(
+		boolean removals , 
+		List<RunArgument> arguments , 
+		EditableText text , 
+		TextReader reader , 
+		Metrics metrics , 
+		List<TextTask> tasks
+	) throws IOException {
+		
+		List<Template> fragments = new ArrayList<>();
+		for(RunArgument x : arguments) if(x.type == RunArguments.INCLUDE) fragments.add(fragment(x));
+		
+		//arguments are consumed as tasks are made from them, so each run works on copies and a job may be run again
+		for(RunArgument x : arguments) {
+			
+			if(removals ? x.type != RunArguments.REMOVE : !x.type.isSafe) continue;
+			if(x.type == RunArguments.INCLUDE) {
+				
+				Template fragment = fragment(x);
+				StringBuilder included = new StringBuilder(fragment.text().length());
+				fragment.render(fragmentTasks(arguments , fragment , reader) , included);
+				//a fragment's last line ends as every line read does, which would break the line it is included into
+				int length = included.length();
+				if(length > 0 && included.charAt(length - 1) == '\n') included.setLength(length - 1);
+				TextTask task = new ReplaceTask(text , reader.getTokenByID(x.flagID()) , included.toString());
+				if(metrics != null) metrics.task(x.type , x.flagID() , task);
+				tasks.add(task);
+				
+			} else if(reader.identifies(x.flagID()) || fragments.stream().noneMatch(fragment -> fragment.identifies(x.flagID()))) {
+				
+				tasks.add(task(x.copy() , text , reader , metrics));
+				
+			}
+			
+		}
+		
+	}
+	
+	/**
+	 * Returns the fragment an include argument names, which is parsed once however many jobs include it.
+	 */
+	private Template fragment(RunArgument include) throws IOException {
+		
+		return FragmentCache.shared.get(resolve(directory , include.values.get(1)) , syntax , inputCharset);
+		
+	}
+	
+	/**
+	 * Makes the tasks of {@code arguments} whose flags are found in {@code fragment} and not in {@code reader}, removals first, to be performed
+	 * on the fragment where it is included. A fragment's flags share one namespace of IDs with the text including it, so an ID found in both
+	 * belongs to the including text.
+	 */
+	private static List<TextTask> fragmentTasks(List<RunArgument> arguments , Template fragment , TextReader reader) {
+		
+		List<TextTask> tasks = new ArrayList<>();
+		for(RunArgument x : arguments) if(x.type == RunArguments.REMOVE && isFragmentTask(x , fragment , reader)) {
+			
+			tasks.add(RunArgument.task(x.type , x.values , null , fragment::getTokenByID));
+			
+		}
+		
+		for(RunArgument x : arguments) if(x.type.isSafe && x.type != RunArguments.INCLUDE && isFragmentTask(x , fragment , reader)) {
+			
+			tasks.add(RunArgument.task(x.type , x.values , null , fragment::getTokenByID));
+			
+		}
+		
+		return tasks;
+		
+	}
+	
+	private static boolean isFragmentTask(RunArgument argument , Template fragment , TextReader reader) {
+		
+		return !reader.identifies(argument.flagID()) && fragment.identifies(argument.flagID());
+		
+	}
+	
+	/**
+	 * Performs the remove tasks or the other tasks of the manifest of this job, if it has one, one batch at a time.
+	 */
+	private void runManifest(boolean removals , EditableText text , TextReader reader , Metrics metrics) throws IOException {
+		
+		if(manifest != null) manifest.forEachBatch(removals , text , reader , metrics , batch -> {
+			
+			new TaskEngine(text , batch).run();
+			metrics.settle(batch.size());
+			
+		});
+		
+	}
+	
+	/**
+	 * Hashes everything the output of this job depends on, which is the bytes of its template, manifest, and fragments, its tasks in the order
+	 * they were given, its flag syntax, whether its tasks are positional, its messages, and the charsets of its input and output.
+	 */
+	private String resultKey() throws IOException {
+		
+		ResultCache.Key key = new ResultCache.Key().addFile(inputPath);
+		key.add(manifest == null ? null : "manifest");
+		if(manifest != null) key.addFile(manifest.path());
+		for(RunArgument x : arguments) if(x.type.isTask()) {
+			
+			key.add(x.type.name());
+			for(String y : x.values) key.add(y);
+			if(x.type == RunArguments.INCLUDE) key.addFile(resolve(directory , x.values.get(1)));
+			
+		}
+		
+		key.add(null);
+		for(int i = 0 ; i < syntax.size() ; i++) key.add(syntax.prefix(i)).add(syntax.suffix(i));
+		return key
+			.add(Boolean.toString(positional))
+			.add(licenseMessage)
+			.add(programmaticMessage)
+			.add(inputCharset.name())
+			.add(outputCharset.name())
+			.name();
+		
+	}
+	
+	private static TextTask task(RunArgument argument , EditableText copiedText , TextReader reader , Metrics metrics) {
+		
+		TextTask task = argument.taskByThisType(copiedText , reader);
+		if(metrics != null) metrics.task(argument.type , argument.flagID() , task);
+		return task;
+		
+	}
+	
+	/**
+	 * Returns the path of the input file of this job.
+	 * 
+	 * @return Input path.
+	 */
+	String inputPath() {
+		
+		return inputPath;
+		
+	}
+
+	/**
+	 * Returns the path of the output file of this job.
+	 * 
+	 * @return Output path.
+	 */
+	String outputPath() {
+		
+		return outputPath;
+		
+	}
+	
+}
@@ -0,0 +1,90 @@
+/**
+ * Licensed under MIT No Attribution.
+ */
+package sc.bjg;
+
+import static sc.bjg.TextReader.lineFeed;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reader which rewrites every line separator of the text it reads to {@link TextReader#lineFeed}, and ends text that is not empty with one. This
+ * gives the same text as joining the lines of a {@link java.util.Scanner} with line feeds, without holding more than one read's worth of text.
+ */
+class LineFeedReader extends FilterReader {
+
+	private boolean
+		skipNewLine = false ,
+		endsInLineFeed = true ,
+		finished = false;
+
+	LineFeedReader(Reader in) {
+
+		super(in);
+
+	}
+
+	@Override public int read() throws IOException {
+
+		char[] one = new char[1];
+		return read(one , 0 , 1) == -1 ? -1 : one[0];
+
+	}
+
+	@Override public int read(char[] chars , int offset , int length) throws IOException {
+
+		if(length == 0) return 0;
+		if(finished) return -1;
+
+		int read;
+		//a read can come back empty when all it read was the second half of a carriage return line feed pair
+		while((read = in.read(chars , offset , length)) != -1) {
+
+			int written = offset;
+			for(int i = offset ; i < offset + read ; i++) {
+
+				char x = chars[i];
+				if(skipNewLine) {
+
+					skipNewLine = false;
+					if(x == '\n') continue;
+
+				}
+
+				if(x == '\r') skipNewLine = true;
+				if(x == '\r' || x == '\n' || x == '\u2028' || x == '\u2029' || x == '\u0085') x = lineFeed;
+				chars[written++] = x;
+
+			}
+
+			if(written > offset) {
+
+				endsInLineFeed = chars[written - 1] == lineFeed;
+				return written - offset;
+
+			}
+
+		}
+
+		finished = true;
+		if(endsInLineFeed) return -1;
+		chars[offset] = lineFeed;
+		return 1;
+
+	}
+
+	@Override public long skip(long n) throws IOException {
+
+		throw new IOException("Skipping is not supported.");
+
+	}
+
+	@Override public boolean markSupported() {
+
+		return false;
+
+	}
+
+}
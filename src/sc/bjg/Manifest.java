@@ -0,0 +1,155 @@
+/**
+ * Licensed under MIT No Attribution.
+ */
+package sc.bjg;
+
+import static java.lang.Long.parseLong;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import sc.bjg.task.EditableText;
+import sc.bjg.task.TextTask;
+
+/**
+ * File of tasks, for jobs with more tasks than fit on a command line. The file is never held in memory; it is read a line at a time each time its
+ * tasks are needed, and its tasks are handed out in batches as they are read, so a manifest can hold any number of tasks.
+ * <p>
+ * 	Each line holds one task, written as on the command line, such as {@code -rp 4 0}. The dash is optional. Values are separated by spaces or
+ * 	tabs, and a value which contains either, or is empty, is written in double quotes, inside which {@code \"} and {@code \\} stand for a double
+ * 	quote and a backslash. Empty lines and lines beginning with {@code #} are skipped. Manifests are read as UTF-8.
+ * </p>
+ */
+class Manifest {
+
+	/**
+	 * Most tasks handed out at once.
+	 */
+	static final int BATCH_SIZE = 1 << 16;
+	
+	private final String path;
+	
+	/**
+	 * Creates a manifest. The file is not read until its tasks are needed.
+	 * 
+	 * @param path  Path of the manifest file.
+	 */
+	Manifest(String path) {
+		
+		this.path = path;
+		
+	}
+	
+	/**
+	 * Returns the path of the manifest file.
+	 * 
+	 * @return Path of the manifest.
+	 */
+	String path() {
+		
+		return path;
+		
+	}
+	
+	/**
+	 * Reads the manifest, creating its remove tasks or its other tasks, and hands them to {@code batches} in the order they are given, at most
+	 * {@link #BATCH_SIZE} at a time.
+	 * 
+	 * @param removals  Whether to create the remove tasks rather than the other tasks.
+	 * @param buffer  Text the tasks operate on, or null.
+	 * @param reader  Reader of the flags the tasks refer to.
+	 * @param metrics  Measurements to record each task in, or null.
+	 * @param batches  Code to invoke with each batch of tasks, which may keep the list it is given.
+	 * @throws IOException if the manifest cannot be read.
+	 * @throws IllegalStateException if a line does not give a task with the right number of values.
+	 * @throws java.util.NoSuchElementException if a line begins with an unknown argument, or a task refers to a flag the input does not have.
+	 */
+	void forEachBatch(boolean removals , EditableText buffer , TextReader reader , Metrics metrics , Consumer<List<TextTask>> batches)
+		throws IOException {
+		
+		try(BufferedReader lines = Files.newBufferedReader(Paths.get(path) , StandardCharsets.UTF_8)) {
+			
+			List<TextTask> batch = new ArrayList<>();
+			List<String> words = new ArrayList<>();
+			String line;
+			for(int number = 1 ; (line = lines.readLine()) != null ; number++) {
+				
+				words.clear();
+				split(line , number , words);
+				if(words.isEmpty()) continue;
+				
+				String argument = words.get(0);
+				RunArguments type = RunArguments.enumForArgument(argument.startsWith("-") ? argument.substring(1) : argument);
+				if(!type.isTask()) throw new IllegalStateException(where(number) + type + " is not a task.");
+				if(type == RunArguments.INCLUDE) throw new IllegalStateException(where(number) + "fragments can only be included by arguments.");
+				if(words.size() - 1 != type.numberInputValues) throw new IllegalStateException(
+					where(number) + type + " takes " + type.numberInputValues + " values, but " + (words.size() - 1) + " were given."
+				);
+				
+				if((type == RunArguments.REMOVE) != removals) continue;
+				TextTask task = RunArgument.task(type , words.subList(1 , words.size()) , buffer , reader);
+				if(metrics != null) metrics.task(type , parseLong(words.get(1)) , task);
+				batch.add(task);
+				if(batch.size() == BATCH_SIZE) {
+					
+					batches.accept(batch);
+					batch = new ArrayList<>();
+					
+				}
+				
+			}
+			
+			if(!batch.isEmpty()) batches.accept(batch);
+			
+		}
+		
+	}
+	
+	/**
+	 * Adds the words of {@code line} to {@code words}, adding none if the line is empty or a comment.
+	 */
+	private void split(String line , int number , List<String> words) {
+		
+		StringBuilder word = new StringBuilder();
+		int i = 0 , length = line.length();
+		while(true) {
+			
+			while(i < length && (line.charAt(i) == ' ' || line.charAt(i) == '\t')) i++;
+			if(i == length || (words.isEmpty() && line.charAt(i) == '#')) return;
+			
+			word.setLength(0);
+			if(line.charAt(i) == '"') {
+				
+				for(i++ ; ; i++) {
+					
+					if(i == length) throw new IllegalStateException(where(number) + "a quoted value is not closed.");
+					char next = line.charAt(i);
+					if(next == '"') break;
+					if(next == '\\' && i + 1 < length && (line.charAt(i + 1) == '"' || line.charAt(i + 1) == '\\')) next = line.charAt(++i);
+					word.append(next);
+					
+				}
+				
+				i++;
+				
+			} else while(i < length && line.charAt(i) != ' ' && line.charAt(i) != '\t') word.append(line.charAt(i++));
+			
+			words.add(word.toString());
+			
+		}
+		
+	}
+	
+	private String where(int number) {
+		
+		return "Line " + number + " of " + path + ": ";
+		
+	}
+	
+}
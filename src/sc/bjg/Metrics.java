@@ -0,0 +1,378 @@
+/**
+ * Licensed under MIT No Attribution.
+ */
+package sc.bjg;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import sc.bjg.task.TextTask;
+
+/**
+ * Measurements of one job. The time taken and bytes allocated by each phase of the job, the number of flags found, and the number of occurrences
+ * each task edited are recorded as Java Flight Recorder events, which cost next to nothing unless a recording is running, and can be written as a
+ * JSON summary once the job is done.
+ * <p>
+ * 	The events are only recorded where the JVM has the {@code jdk.jfr} module, as it does from Java 11. They are committed by
+ * 	{@link FlightEvents}, the only class using that module, which is not loaded elsewhere, so that jobs still run and write summaries there.
+ * </p>
+ * <p>
+ * 	Tasks are only recorded if a summary is to be written or a recording of task events is running when the job begins, so that a job measured
+ * 	by neither keeps nothing per task. Each recorded task is kept only until its occurrences are {@link #settle(int) settled}, after which only
+ * 	its type, flag ID, and occurrences remain.
+ * </p>
+ */
+class Metrics {
+
+	static final String
+		PARSE = "parse" ,
+		COPY = "copy" ,
+		REMOVE = "remove" ,
+		SAFE = "safe" ,
+		POSITIONAL = "positional" ,
+		ENCODE = "encode" ,
+		WRITE = "write" ,
+		REUSE = "reuse";
+	
+	/**
+	 * Events measurements are committed as, none of which is recorded. {@link FlightEvents} records them where the JVM can.
+	 */
+	static class Events {
+		
+		/**
+		 * Begins the event of a phase.
+		 * 
+		 * @return The event, to be given to {@link #endPhase(Object, String, String, long)}.
+		 */
+		Object beginPhase() {
+			
+			return null;
+			
+		}
+		
+		/**
+		 * Ends the event of a phase, committing it if it is recorded.
+		 * 
+		 * @param event  Event returned by {@link #beginPhase()}.
+		 * @param input  Path of the job's input.
+		 * @param phase  Name of the phase.
+		 * @param allocated  Bytes allocated during the phase, or -1 if unknown.
+		 */
+		void endPhase(Object event , String input , String phase , long allocated) {}
+		
+		/**
+		 * Commits the number of flags found in an input, if it is recorded.
+		 * 
+		 * @param input  Path of the input.
+		 * @param flags  Number of flags.
+		 */
+		void flags(String input , int flags) {}
+		
+		/**
+		 * Returns whether the events of tasks are being recorded.
+		 * 
+		 * @return Whether {@link #task(String, String, long, int)} may commit an event.
+		 */
+		boolean recordsTasks() {
+			
+			return false;
+			
+		}
+		
+		/**
+		 * Commits the occurrences a task edited, if it is recorded.
+		 * 
+		 * @param input  Path of the job's input.
+		 * @param task  Type of the task.
+		 * @param ID  ID of the flag the task operates on.
+		 * @param occurrences  Number of occurrences edited.
+		 * @return Whether the event was committed, so that no more task events need be tried if not.
+		 */
+		boolean task(String input , String task , long ID , int occurrences) {
+			
+			return false;
+			
+		}
+		
+	}
+	
+	private static final Events EVENTS = events();
+	
+	/**
+	 * Creates the events of a JVM with Java Flight Recorder, found through reflection so that {@link FlightEvents} is never loaded otherwise.
+	 */
+	private static Events events() {
+		
+		try {
+			
+			Class.forName("jdk.jfr.Event");
+			return (Events)Class.forName("sc.bjg.FlightEvents").getDeclaredConstructor().newInstance();
+			
+		} catch(ReflectiveOperationException | LinkageError e) {
+			
+			return new Events();
+			
+		}
+		
+	}
+	
+	/**
+	 * Thread bean able to tell how many bytes a thread has allocated, or null if this JVM cannot.
+	 */
+	private static final com.sun.management.ThreadMXBean allocation = allocation();
+	
+	private static com.sun.management.ThreadMXBean allocation() {
+		
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if(!(threads instanceof com.sun.management.ThreadMXBean)) return null;
+		com.sun.management.ThreadMXBean allocation = (com.sun.management.ThreadMXBean)threads;
+		return allocation.isThreadAllocatedMemorySupported() && allocation.isThreadAllocatedMemoryEnabled() ? allocation : null;
+		
+	}
+	
+	private static long allocatedBytes() {
+		
+		return allocation == null ? -1 : allocation.getThreadAllocatedBytes(Thread.currentThread().getId());
+		
+	}
+	
+	/**
+	 * One phase of a job, which is measured from its creation until it ends.
+	 */
+	class Phase {
+		
+		private final String name;
+		private final Object event;
+		private final long 
+			startNanos ,
+			startAllocated;
+		
+		private long 
+			nanos ,
+			allocated;
+		
+		private Phase(String name) {
+			
+			this.name = name;
+			event = EVENTS.beginPhase();
+			startAllocated = allocatedBytes();
+			startNanos = System.nanoTime();
+			
+		}
+		
+		/**
+		 * Ends the phase, recording its measurements.
+		 */
+		void end() {
+			
+			nanos = System.nanoTime() - startNanos;
+			allocated = startAllocated == -1 ? -1 : allocatedBytes() - startAllocated;
+			EVENTS.endPhase(event , input , name , allocated);
+			phases.add(this);
+			
+		}
+		
+	}
+	
+	private final String 
+		input ,
+		output ,
+		summaryPath;
+	
+	private final boolean recordsTasks;
+	private final List<Phase> phases = new ArrayList<>();
+	private final List<RunArguments> taskTypes = new ArrayList<>();
+	private long[] taskIDs = new long[16];
+	private int[] taskOccurrences = new int[16];
+	
+	/**
+	 * Recorded tasks, each of which is replaced by null once its occurrences are {@link #settle(int) settled}.
+	 */
+	private final List<TextTask> tasks = new ArrayList<>();
+	private int flags = -1;
+	
+	/**
+	 * Creates the measurements of a job.
+	 * 
+	 * @param input  Path of the job's input.
+	 * @param output  Path of the job's output.
+	 * @param summaryPath  Path of the file to write a JSON summary to once the job is {@link #finish() finished}, or null.
+	 */
+	Metrics(String input , String output , String summaryPath) {
+		
+		this.input = input;
+		this.output = output;
+		this.summaryPath = summaryPath;
+		recordsTasks = summaryPath != null || EVENTS.recordsTasks();
+		
+	}
+	
+	/**
+	 * Begins measuring a phase.
+	 * 
+	 * @param name  Name of the phase.
+	 * @return Phase to end once it is done.
+	 */
+	Phase phase(String name) {
+		
+		return new Phase(name);
+		
+	}
+	
+	/**
+	 * Records the number of flags found in the input.
+	 * 
+	 * @param flags  Number of flags.
+	 */
+	void flags(int flags) {
+		
+		this.flags = flags;
+		EVENTS.flags(input , flags);
+		
+	}
+	
+	/**
+	 * Records a task, whose occurrences are read once it is {@link #settle(int) settled}, or at the latest once the job is
+	 * {@link #finish() finished}. Does nothing if tasks are not recorded.
+	 * 
+	 * @param type  Type of the argument the task was created from.
+	 * @param ID  ID of the flag the task operates on.
+	 * @param task  The task.
+	 */
+	void task(RunArguments type , long ID , TextTask task) {
+		
+		if(recordsTasks) record(type , ID , task);
+		
+	}
+	
+	/**
+	 * Records a task already performed whose occurrences were counted elsewhere, as by a {@link sc.bjg.task.TextPlan}, which does not set them.
+	 * Does nothing if tasks are not recorded.
+	 * 
+	 * @param type  Type of the argument the task was created from.
+	 * @param ID  ID of the flag the task operates on.
+	 * @param occurrences  Number of occurrences the task edited.
+	 */
+	void task(RunArguments type , long ID , int occurrences) {
+		
+		if(recordsTasks) taskOccurrences[record(type , ID , null)] = occurrences;
+		
+	}
+	
+	private int record(RunArguments type , long ID , TextTask task) {
+		
+		int index = tasks.size();
+		if(index == taskIDs.length) {
+			
+			taskIDs = Arrays.copyOf(taskIDs , index * 2);
+			taskOccurrences = Arrays.copyOf(taskOccurrences , index * 2);
+			
+		}
+		
+		taskTypes.add(type);
+		taskIDs[index] = ID;
+		tasks.add(task);
+		return index;
+		
+	}
+	
+	/**
+	 * Reads the occurrences of the last {@code count} tasks recorded, which must have been performed, and lets go of them.
+	 * 
+	 * @param count  Number of tasks to settle.
+	 */
+	void settle(int count) {
+		
+		for(int i = tasks.size() - count ; i < tasks.size() ; i++) if(tasks.get(i) != null) {
+			
+			taskOccurrences[i] = tasks.get(i).occurrences();
+			tasks.set(i , null);
+			
+		}
+		
+	}
+	
+	/**
+	 * Reads the occurrences of every task recorded so far, all of which must have been performed, and lets go of them.
+	 */
+	void settle() {
+		
+		settle(tasks.size());
+		
+	}
+	
+	/**
+	 * Records the number of occurrences each task edited, and writes a summary of all measurements if a summary path was given.
+	 * 
+	 * @throws IOException if the summary cannot be written.
+	 */
+	void finish() throws IOException {
+		
+		settle();
+		for(int i = 0 ; i < tasks.size() ; i++) if(!EVENTS.task(input , taskTypes.get(i).toString() , taskIDs[i] , taskOccurrences[i])) break;
+		
+		if(summaryPath == null) return;
+		try(Writer writer = new FileWriter(summaryPath)) {
+			
+			writer.write(toString());
+			writer.write(TextReader.lineFeed);
+			
+		}
+		
+	}
+	
+	/**
+	 * Returns the measurements as one line of JSON. Allocation is -1 if this JVM cannot measure it.
+	 */
+	@Override public String toString() {
+		
+		StringBuilder json = new StringBuilder(256);
+		json.append("{\"input\":");
+		quote(json , input).append(",\"output\":");
+		quote(json , output).append(",\"flags\":").append(flags).append(",\"phases\":[");
+		for(int i = 0 ; i < phases.size() ; i++) {
+			
+			Phase x = phases.get(i);
+			if(i > 0) json.append(',');
+			json.append("{\"name\":");
+			quote(json , x.name).append(",\"nanos\":").append(x.nanos).append(",\"allocatedBytes\":").append(x.allocated).append('}');
+			
+		}
+		
+		json.append("],\"tasks\":[");
+		for(int i = 0 ; i < tasks.size() ; i++) {
+			
+			if(i > 0) json.append(',');
+			json.append("{\"type\":");
+			quote(json , taskTypes.get(i).toString()).append(",\"id\":").append(taskIDs[i]);
+			json.append(",\"occurrences\":").append(taskOccurrences[i]).append('}');
+			
+		}
+		
+		return json.append("]}").toString();
+		
+	}
+	
+	private static StringBuilder quote(StringBuilder json , String string) {
+		
+		json.append('"');
+		for(int i = 0 ; i < string.length() ; i++) {
+			
+			char x = string.charAt(i);
+			if(x == '"' || x == '\\') json.append('\\').append(x);
+			else if(x < 0x20) json.append(String.format("\\u%04x" , (int)x));
+			else json.append(x);
+			
+		}
+		
+		return json.append('"');
+		
+	}
+	
+}
@@ -0,0 +1,223 @@
+/**
+ * Licensed under MIT No Attribution.
+ */
+package sc.bjg;
+
+import static sc.bjg.TextReader.lineFeed;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Finds the flags of a text held in memory by splitting it into chunks that begin at the start of a line and scanning the chunks in parallel on
+ * the common fork/join pool. The tokens found are merged in chunk order, so the result, including which repeated ID is reported, is the same as
+ * scanning the whole text with one {@link FlagScanner}.
+ * <p>
+ * 	Each chunk is scanned as if nothing before it bears on it, which is true unless the previous chunk ends right after a flag, whose token is then
+ * 	the first run of the next line. Whether it does is only known once the previous chunk is scanned, so after all chunks are scanned, any chunk
+ * 	that follows such a flag is scanned again by the previous chunk's scanner, carrying on where it stopped.
+ * </p>
+ */
+class ParallelScan {
+	
+	/**
+	 * Number of characters a text must have for each chunk to be scanned on its own thread, as smaller chunks are not worth forking for.
+	 */
+	static final int MIN_CHUNK_SIZE = 1 << 20;
+	
+	/**
+	 * Returns whether a text of the given length is split into chunks when scanned.
+	 * 
+	 * @param length  Number of characters of a text.
+	 * @return Whether scanning it in parallel is worthwhile.
+	 */
+	static boolean worthwhile(int length) {
+		
+		return length >= 2 * MIN_CHUNK_SIZE && ForkJoinPool.getCommonPoolParallelism() > 1;
+		
+	}
+	
+	/**
+	 * Finds the flags of {@code text}, which must not change while it is scanned.
+	 * 
+	 * @param text  Text to scan, whose line separators are all {@link TextReader#lineFeed}.
+	 * @param syntax  Prefix and suffix of flags.
+	 * @param keepTokens  Whether the table returned keeps its tokens, rather than reading them from {@code text}.
+	 * @return Table of the tokens found.
+	 * @throws IllegalArgumentException if a flag has the same ID as one seen before it.
+	 * @throws NumberFormatException if the ID of a flag is too large.
+	 */
+	static TokenTable scan(CharSequence text , FlagSyntax syntax , boolean keepTokens) {
+		
+		int[] starts = chunkStarts(text);
+		Chunk[] chunks = new Chunk[starts.length - 1];
+		ForkJoinPool.commonPool().invoke(new ScanChunks(text , syntax , keepTokens , starts , chunks , 0 , chunks.length));
+		
+		//a chunk following one that did not end reset was scanned from the wrong state, so the earlier chunk's scanner scans it again
+		Chunk last = chunks[0];
+		for(int i = 1 ; i < chunks.length ; i++) {
+			
+			if(last.error == null && !last.scanner.isReset()) {
+				
+				last.scan(text , starts[i] , starts[i + 1]);
+				chunks[i] = last;
+				
+			} else last = chunks[i];
+			
+		}
+		
+		if(last.error == null) try {
+			
+			last.scanner.end();
+			
+		} catch(IllegalArgumentException e) {
+			
+			last.error = e;
+			
+		}
+		
+		return merge(chunks , keepTokens ? new TokenTable() : new TokenTable(text));
+		
+	}
+	
+	/**
+	 * Returns the offsets chunks of {@code text} begin at, each just after a line feed, followed by the length of the text.
+	 */
+	private static int[] chunkStarts(CharSequence text) {
+		
+		int length = text.length();
+		int size = Math.max(MIN_CHUNK_SIZE , length / (ForkJoinPool.getCommonPoolParallelism() * 4));
+		int[] starts = new int[length / size + 2];
+		int number = 1;
+		for(int next = size ; next < length ; next += size) {
+			
+			while(next < length && text.charAt(next - 1) != lineFeed) next++;
+			if(next == length) break;
+			starts[number++] = next;
+			
+		}
+		
+		starts[number++] = length;
+		return Arrays.copyOf(starts , number);
+		
+	}
+	
+	/**
+	 * Adds the tokens of each distinct chunk to one table in order, checking each flag of a chunk against the tokens of the chunks before it just
+	 * as a single scanner would have when reading it.
+	 */
+	private static TokenTable merge(Chunk[] chunks , TokenTable merged) {
+		
+		Chunk previous = null;
+		for(Chunk x : chunks) {
+			
+			if(x == previous) continue;
+			previous = x;
+			FlagScanner scanner = x.scanner;
+			for(int i = 0 ; i < scanner.numberFlagged() ; i++) {
+				
+				long ID = scanner.flagged(i);
+				if(merged.indexOf(ID) >= 0) throw FlagScanner.repeatedID(ID);
+				
+			}
+			
+			if(x.error != null) throw x.error;
+			for(int i = 0 ; i < x.tokens.size() ; i++) merged.add(x.tokens , i);
+			
+		}
+		
+		return merged;
+		
+	}
+	
+	/**
+	 * Scanner of one chunk and the tokens it found, or the exception it threw, after which it scans no further.
+	 */
+	private static class Chunk {
+		
+		final TokenTable tokens;
+		final FlagScanner scanner;
+		IllegalArgumentException error;
+		
+		Chunk(CharSequence text , FlagSyntax syntax , boolean keepTokens , int start) {
+			
+			tokens = keepTokens ? new TokenTable() : new TokenTable(text);
+			scanner = new FlagScanner(syntax , tokens , start , true);
+			
+		}
+		
+		void scan(CharSequence text , int from , int to) {
+			
+			if(error != null) return;
+			char[] piece = new char[Math.min(TextReader.CHUNK_SIZE , to - from)];
+			try {
+				
+				for(int i = from ; i < to ; i += piece.length) {
+					
+					int end = Math.min(i + piece.length , to);
+					TextReader.getChars(text , i , end , piece);
+					scanner.scan(piece , 0 , end - i);
+					
+				}
+				
+			} catch(IllegalArgumentException e) {
+				
+				error = e;
+				
+			}
+			
+		}
+		
+	}
+	
+	/**
+	 * Scans a range of chunks, splitting it in half until one chunk is left.
+	 */
+	private static class ScanChunks extends RecursiveAction {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private final transient CharSequence text;
+		private final transient FlagSyntax syntax;
+		private final boolean keepTokens;
+		private final int[] starts;
+		private final transient Chunk[] chunks;
+		private final int
+			from ,
+			to;
+		
+		ScanChunks(CharSequence text , FlagSyntax syntax , boolean keepTokens , int[] starts , Chunk[] chunks , int from , int to) {
+			
+			this.text = text;
+			this.syntax = syntax;
+			this.keepTokens = keepTokens;
+			this.starts = starts;
+			this.chunks = chunks;
+			this.from = from;
+			this.to = to;
+			
+		}
+		
+		@Override protected void compute() {
+			
+			if(to - from == 1) {
+				
+				Chunk chunk = new Chunk(text , syntax , keepTokens , starts[from]);
+				chunk.scan(text , starts[from] , starts[to]);
+				chunks[from] = chunk;
+				return;
+				
+			}
+			
+			int middle = (from + to) >>> 1;
+			invokeAll(
+				new ScanChunks(text , syntax , keepTokens , starts , chunks , from , middle) ,
+				new ScanChunks(text , syntax , keepTokens , starts , chunks , middle , to)
+			);
+			
+		}
+		
+	}
+	
+}
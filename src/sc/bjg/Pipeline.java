@@ -0,0 +1,269 @@
+/**
+ * Licensed under MIT No Attribution.
+ */
+package sc.bjg;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Runs many jobs as three overlapping stages, so that waiting on disks is hidden behind parsing and performing tasks. Input files are read, and
+ * output files written, each on a thread of its own, which is a virtual thread if the JVM has them. Parsing, tasks, and encoding run on a fixed
+ * pool of platform threads, one per processor unless told otherwise. Jobs that cannot be split into stages are run whole on that pool.
+ * <p>
+ * 	The stages are joined by bounded queues. At most a queue's worth of inputs are being read or waiting for the pool. Up to a queue's worth of
+ * 	outputs are written at once, and once another queue's worth wait behind them, the pool waits too. So no more than three queues' worth of
+ * 	inputs and outputs, and one more per thread of the pool, are in memory at once, however many jobs there are. Each input and output is one
+ * 	array of its bytes, an output being encoded straight into an array of exactly its size. A thread of the pool also holds the text of the job
+ * 	it is running, and the result of its tasks, while it runs it.
+ * </p>
+ */
+class Pipeline {
+	
+	/**
+	 * Number of inputs read ahead, and of outputs waiting to be written, when none is given.
+	 */
+	static final int DEFAULT_QUEUE_SIZE = 16;
+	
+	/**
+	 * Creates the executor reading and writing files, which starts a virtual thread per task where the JVM has them, as it does from Java 21, and
+	 * reuses daemon platform threads otherwise. It is found through reflection so that BJG still runs on older JVMs. The queues bound how many
+	 * threads it runs at once either way.
+	 */
+	private static ExecutorService ioThreads() {
+		
+		try {
+			
+			return (ExecutorService)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+			
+		} catch(ReflectiveOperationException | RuntimeException e) {
+			
+			return Executors.newCachedThreadPool(task -> {
+				
+				Thread thread = new Thread(task , "BJG I/O");
+				thread.setDaemon(true);
+				return thread;
+				
+			});
+			
+		}
+		
+	}
+	
+	/**
+	 * One job as it moves through the stages.
+	 */
+	private static class Item {
+		
+		final int index;
+		final Job job;
+		byte[] input;
+		Job.Output output;
+		Throwable failure;
+		
+		Item(int index , Job job) {
+			
+			this.index = index;
+			this.job = job;
+			
+		}
+		
+	}
+	
+	private final int
+		workers ,
+		queueSize;
+	
+	/**
+	 * Creates a pipeline.
+	 * 
+	 * @param workers  Number of threads parsing and performing tasks.
+	 * @param queueSize  Number of inputs read ahead, and of outputs waiting to be written, before the stage producing them waits.
+	 * @throws IllegalArgumentException if either parameter is less than one.
+	 */
+	Pipeline(int workers , int queueSize) {
+		
+		if(workers < 1 || queueSize < 1) throw new IllegalArgumentException(
+			"A pipeline needs at least one worker and a queue of at least one, but " + workers + " and " + queueSize + " were given."
+		);
+		
+		this.workers = workers;
+		this.queueSize = queueSize;
+		
+	}
+	
+	/**
+	 * Runs every job, returning once all have finished or failed.
+	 * 
+	 * @param jobs  Jobs to run.
+	 * @param archive  Archive shared by every job, or null for jobs to write files.
+	 * @return What each job failed with, at the index of the job, or null where it succeeded.
+	 * @throws InterruptedException if interrupted while waiting for jobs to finish.
+	 */
+	Throwable[] run(List<Job> jobs , ArchiveWriter archive) throws InterruptedException {
+		
+		Throwable[] failures = new Throwable[jobs.size()];
+		CountDownLatch finished = new CountDownLatch(jobs.size());
+		BlockingQueue<Item>
+			read = new ArrayBlockingQueue<>(queueSize) ,
+			transformed = new ArrayBlockingQueue<>(queueSize);
+		
+		Semaphore
+			reading = new Semaphore(queueSize) ,
+			writing = new Semaphore(queueSize);
+		
+		ExecutorService 
+			pool = Executors.newFixedThreadPool(workers) ,
+			io = ioThreads();
+		
+		//one thread hands each output to a thread of its own to be written, waiting while a queue's worth are being written
+		io.execute(() -> {
+			
+			try {
+				
+				while(true) {
+					
+					Item item = transformed.take();
+					writing.acquire();
+					io.execute(() -> {
+						
+						try {
+							
+							item.job.write(item.output , archive);
+							
+						} catch(Throwable e) {
+							
+							item.failure = e;
+							
+						} finally {
+							
+							writing.release();
+							finish(item , failures , finished);
+							
+						}
+						
+					});
+					
+				}
+				
+			} catch(InterruptedException e) {
+				
+				//every job has finished
+				
+			}
+			
+		});
+		
+		try {
+			
+			for(int i = 0 ; i < workers ; i++) pool.execute(() -> transform(read , reading , transformed , archive , failures , finished));
+			for(int i = 0 ; i < jobs.size() ; i++) {
+				
+				Item item = new Item(i , jobs.get(i));
+				reading.acquire();
+				if(!item.job.runsInStages()) {
+					
+					read.put(item);
+					continue;
+					
+				}
+				
+				io.execute(() -> {
+					
+					try {
+						
+						item.input = item.job.readInput();
+						
+					} catch(Throwable e) {
+						
+						item.failure = e;
+						
+					}
+					
+					//the permit taken for this item keeps the queue from ever being full here
+					read.add(item);
+					
+				});
+				
+			}
+			
+			finished.await();
+			
+		} finally {
+			
+			pool.shutdownNow();
+			io.shutdownNow();
+			
+		}
+		
+		return failures;
+		
+	}
+	
+	/**
+	 * Runs on each thread of the pool, taking read jobs until interrupted.
+	 */
+	private static void transform(
+		BlockingQueue<Item> read ,
+		Semaphore reading ,
+		BlockingQueue<Item> transformed ,
+		ArchiveWriter archive ,
+		Throwable[] failures ,
+		CountDownLatch finished
+	) {
+		
+		try {
+			
+			while(true) {
+				
+				Item item = read.take();
+				reading.release();
+				if(item.failure == null) try {
+					
+					if(item.job.runsInStages()) {
+						
+						item.output = item.job.transform(item.input);
+						item.input = null;
+						transformed.put(item);
+						continue;
+						
+					}
+					
+					item.job.run(archive);
+					
+				} catch(InterruptedException e) {
+					
+					throw e;
+					
+				} catch(Throwable e) {
+					
+					//the job fails rather than the thread, so that every job is accounted for
+					item.failure = e;
+					
+				}
+				
+				finish(item , failures , finished);
+				
+			}
+			
+		} catch(InterruptedException e) {
+			
+			//every job has finished
+			
+		}
+		
+	}
+	
+	private static void finish(Item item , Throwable[] failures , CountDownLatch finished) {
+		
+		failures[item.index] = item.failure;
+		finished.countDown();
+		
+	}
+	
+}
@@ -0,0 +1,166 @@
+/**
+ * Licensed under MIT No Attribution.
+ */
+package sc.bjg;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Primitive types a generic template can be specialized for, each giving the text that replaces the placeholders of the template's tasks.
+ * <p>
+ * 	In the last value of a task, {@code {type}} is replaced by the primitive's name, such as {@code int}, {@code {wrapper}} by the name of its
+ * 	wrapper class, such as {@code Integer}, {@code {default}} by its default value, such as {@code 0}, and {@code {name}} by its name beginning
+ * 	with a capital letter, such as {@code Int}, which also names the variant.
+ * </p>
+ * <p>
+ * 	A flag no task operates on is specialized too if its token is the declaration of the template's type parameter, such as {@code <T>}, which
+ * 	is removed, the type parameter itself, which stands for {@code {type}}, or {@code null}, which stands for {@code {default}}, either of the
+ * 	last two perhaps followed by punctuation, as in {@code null;}. The text of the template is never read as Java, so anything else, such as a
+ * 	call boxing or unboxing a value, is only specialized by a task with a placeholder.
+ * </p>
+ */
+enum Primitive {
+	
+	BOOLEAN("boolean" , "Boolean" , "false") ,
+	BYTE("byte" , "Byte" , "(byte)0") ,
+	SHORT("short" , "Short" , "(short)0") ,
+	CHAR("char" , "Character" , "'\\0'") ,
+	INT("int" , "Integer" , "0") ,
+	LONG("long" , "Long" , "0L") ,
+	FLOAT("float" , "Float" , "0f") ,
+	DOUBLE("double" , "Double" , "0d")
+	;
+	
+	private static final String[] PLACEHOLDERS = {"{type}" , "{wrapper}" , "{default}" , "{" + VariantTable.NAME + "}"};
+	
+	/**
+	 * Type parameter of a template none of whose flags declares one.
+	 */
+	static final String DEFAULT_PARAMETER = "T";
+	
+	private static final String NULL = "null";
+	private static final Pattern 
+		DECLARATION = Pattern.compile("<(\\p{javaJavaIdentifierStart}\\p{javaJavaIdentifierPart}*)>") ,
+		WORD = Pattern.compile("(\\p{javaJavaIdentifierPart}+)(\\p{Punct}*)");
+	
+	/**
+	 * Returns the type parameter a token declares.
+	 * 
+	 * @param token  Token of a flag.
+	 * @return Name of the type parameter, such as {@code T} for {@code <T>}, or null if the token is not the declaration of one.
+	 */
+	static String declaredParameter(String token) {
+		
+		Matcher declaration = DECLARATION.matcher(token);
+		return declaration.matches() ? declaration.group(1) : null;
+		
+	}
+	
+	/**
+	 * Returns the text with placeholders a token of a generic template stands for. Punctuation ending the token, such as the semicolon of
+	 * {@code null;}, is kept.
+	 * 
+	 * @param token  Token of a flag.
+	 * @param parameter  Type parameter of the template.
+	 * @return {@code {type}} in place of the type parameter, {@code {default}} in place of {@code null}, or null for any other token.
+	 */
+	static String placeholderOf(String token , String parameter) {
+		
+		Matcher word = WORD.matcher(token);
+		if(!word.matches()) return null;
+		if(word.group(1).equals(parameter)) return PLACEHOLDERS[0] + word.group(2);
+		if(word.group(1).equals(NULL)) return PLACEHOLDERS[2] + word.group(2);
+		return null;
+		
+	}
+	
+	/**
+	 * Returns the primitives named in a list.
+	 * 
+	 * @param names  Names of primitives, such as {@code int,long,double}, separated by commas.
+	 * @return The primitives, in the order they are named.
+	 * @throws NoSuchElementException if a name is not that of a primitive type.
+	 * @throws IllegalArgumentException if a primitive is named twice, as its variants would be written to the same file.
+	 */
+	static List<Primitive> list(String names) {
+		
+		List<Primitive> primitives = new ArrayList<>();
+		for(String x : names.split(",")) {
+			
+			Primitive primitive = forName(x.trim());
+			if(primitives.contains(primitive)) throw new IllegalArgumentException(primitive.type + " is named twice in " + names);
+			primitives.add(primitive);
+			
+		}
+		
+		return primitives;
+		
+	}
+	
+	private static Primitive forName(String type) {
+		
+		for(Primitive x : values()) if(x.type.equals(type)) return x;
+		throw new NoSuchElementException(type + " is not a primitive type.");
+		
+	}
+	
+	/**
+	 * Returns whether the last value of {@code argument} has a placeholder, so that it gives a different task for each primitive.
+	 * 
+	 * @param argument  A task argument.
+	 * @return Whether {@link #expand(String)} would change the argument's last value.
+	 */
+	static boolean isTemplate(RunArgument argument) {
+		
+		if(!argument.type.isSafe || argument.values.isEmpty()) return false;
+		String value = argument.values.get(argument.values.size() - 1);
+		for(String x : PLACEHOLDERS) if(value.contains(x)) return true;
+		return false;
+		
+	}
+	
+	final String
+		type ,
+		wrapper ,
+		defaultValue;
+	
+	Primitive(String type , String wrapper , String defaultValue) {
+		
+		this.type = type;
+		this.wrapper = wrapper;
+		this.defaultValue = defaultValue;
+		
+	}
+	
+	/**
+	 * Returns the name of this primitive beginning with a capital letter, which names its variant.
+	 * 
+	 * @return Capitalized name, such as {@code Int}.
+	 */
+	String title() {
+		
+		return Character.toUpperCase(type.charAt(0)) + type.substring(1);
+		
+	}
+	
+	/**
+	 * Replaces every placeholder in {@code text} by its text for this primitive.
+	 * 
+	 * @param text  Text that may have placeholders.
+	 * @return Text for this primitive.
+	 */
+	String expand(String text) {
+		
+		return text
+			.replace(PLACEHOLDERS[0] , type)
+			.replace(PLACEHOLDERS[1] , wrapper)
+			.replace(PLACEHOLDERS[2] , defaultValue)
+			.replace(PLACEHOLDERS[3] , title());
+		
+	}
+	
+}
@@ -0,0 +1,346 @@
+/**
+ * Licensed under MIT No Attribution.
+ */
+package sc.bjg;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Directory of the outputs of past jobs, each stored under a hash of everything its contents depend on, so that a job whose template, tasks,
+ * flag syntax, and messages have not changed need not parse or perform anything, but only copy what it wrote before.
+ * <p>
+ * 	The directory is kept below a given size by deleting the entries used least recently, which is judged by their modification times, as an
+ * 	entry's time is renewed whenever it is used. Entries are written atomically, and an entry deleted while being used is only a miss, so any
+ * 	number of jobs may share one directory.
+ * </p>
+ * <p>
+ * 	The size of the directory is read once, when the first entry is stored, and kept up to date as entries are stored from then on. The directory
+ * 	is only listed again once that size goes over the limit, so storing an entry costs a constant number of file operations however many entries
+ * 	there are. Jobs of one JVM share one cache per directory through {@link #shared(String, long)}, so that a batch reads the size once. Entries
+ * 	stored by other processes are only counted when the directory is next listed.
+ * </p>
+ */
+public class ResultCache {
+	
+	/**
+	 * Size a cache is kept below when none is given, in megabytes.
+	 */
+	static final long DEFAULT_MEGABYTES = 256;
+	
+	private static final String
+		VERSION = "BJG result 1" ,
+		SUFFIX = ".out";
+	
+	/**
+	 * Hash of everything the output of a job depends on. Each part is hashed with its length, so that no two lists of parts hash alike by being
+	 * split differently.
+	 */
+	static class Key {
+		
+		private final MessageDigest digest = FlagCache.newDigest();
+		
+		Key() {
+			
+			add(VERSION);
+			
+		}
+		
+		/**
+		 * Adds a part to the key.
+		 * 
+		 * @param part  Text the output depends on, or null.
+		 * @return This key.
+		 */
+		Key add(String part) {
+			
+			if(part == null) return add(new byte[0] , -1);
+			byte[] bytes = part.getBytes(StandardCharsets.UTF_8);
+			return add(bytes , bytes.length);
+			
+		}
+		
+		/**
+		 * Adds the contents of a file to the key.
+		 * 
+		 * @param file  File the output depends on.
+		 * @return This key.
+		 * @throws IOException if the file cannot be read.
+		 */
+		Key addFile(String file) throws IOException {
+			
+			Path path = Paths.get(file);
+			add(null , Files.size(path));
+			byte[] buffer = new byte[TextReader.CHUNK_SIZE];
+			try(InputStream in = Files.newInputStream(path)) {
+				
+				for(int read ; (read = in.read(buffer)) != -1 ; ) digest.update(buffer , 0 , read);
+				
+			}
+			
+			return this;
+			
+		}
+		
+		private Key add(byte[] bytes , long length) {
+			
+			for(int i = 56 ; i >= 0 ; i -= 8) digest.update((byte)(length >>> i));
+			if(bytes != null) digest.update(bytes);
+			return this;
+			
+		}
+		
+		/**
+		 * Finishes the key. It cannot be added to afterward.
+		 * 
+		 * @return Key as hexadecimal digits.
+		 */
+		String name() {
+			
+			StringBuilder name = new StringBuilder(64);
+			for(byte x : digest.digest()) name.append(Character.forDigit((x >> 4) & 0xf , 16)).append(Character.forDigit(x & 0xf , 16));
+			return name.toString();
+			
+		}
+		
+	}
+	
+	/**
+	 * Caches opened by {@link #shared(String, long)}, by directory and size. Guarded by the class.
+	 */
+	private static final Map<String , ResultCache> shared = new HashMap<>();
+	
+	/**
+	 * Returns the cache of {@code directory} shared by every job of this JVM that keeps it below the same size, creating it if none has yet.
+	 * 
+	 * @param directory  Path of the directory to keep entries in.
+	 * @param maxBytes  Size in bytes the entries of the directory are kept below.
+	 * @return The cache.
+	 * @throws UncheckedIOException if the directory cannot be created.
+	 */
+	static synchronized ResultCache shared(String directory , long maxBytes) {
+		
+		String key = Paths.get(directory).toAbsolutePath().normalize() + "\0" + maxBytes;
+		return shared.computeIfAbsent(key , unused -> new ResultCache(directory , maxBytes));
+		
+	}
+	
+	private final Path directory;
+	private final long maxBytes;
+	
+	/**
+	 * Size of the entries of the directory as far as this cache knows, or -1 until it is first read. Guarded by this cache.
+	 */
+	private long bytes = -1;
+	
+	/**
+	 * Creates a result cache in {@code directory}, creating the directory if it does not exist.
+	 * 
+	 * @param directory  Path of the directory to keep entries in.
+	 * @param maxBytes  Size in bytes the entries of the directory are kept below.
+	 * @throws UncheckedIOException if the directory cannot be created.
+	 */
+	public ResultCache(String directory , long maxBytes) {
+		
+		this.directory = Paths.get(directory);
+		this.maxBytes = maxBytes;
+		try {
+			
+			Files.createDirectories(this.directory);
+			
+		} catch(IOException e) {
+			
+			throw new UncheckedIOException(e);
+			
+		}
+		
+	}
+	
+	/**
+	 * Returns the entry stored under {@code key}, marking it as used.
+	 * 
+	 * @param key  Name of a key.
+	 * @return Path of the entry, or null if there is none.
+	 */
+	Path find(String key) {
+		
+		Path entry = directory.resolve(key + SUFFIX);
+		try {
+			
+			Files.setLastModifiedTime(entry , FileTime.fromMillis(System.currentTimeMillis()));
+			return entry;
+			
+		} catch(IOException e) {
+			
+			return null;
+			
+		}
+		
+	}
+	
+	/**
+	 * Makes {@code output} hold the contents of an entry. An output that already holds them is left as it is, along with its modification time.
+	 * The output is a copy rather than a link to the entry, as outputs are rewritten in place, which would change the entry through a link.
+	 * 
+	 * @param entry  Entry given by {@link #find(String)}.
+	 * @param output  Path of the output file.
+	 * @return Whether the output file was written, or null if the entry was deleted before it could be copied.
+	 * @throws IOException if the output cannot be read or written.
+	 */
+	static Boolean copy(Path entry , Path output) throws IOException {
+		
+		try {
+			
+			if(Files.isRegularFile(output) && Files.size(output) == Files.size(entry) && Arrays.equals(
+				Files.readAllBytes(output) ,
+				Files.readAllBytes(entry)
+			)) return false;
+			
+			Files.copy(entry , output , StandardCopyOption.REPLACE_EXISTING);
+			return true;
+			
+		} catch(NoSuchFileException e) {
+			
+			if(Files.exists(entry)) throw e;
+			return null;
+			
+		}
+		
+	}
+	
+	/**
+	 * Stores a copy of the file at {@code output} under {@code key}, then deletes the entries used least recently if the directory has grown past
+	 * its size. A result which cannot be stored only costs the next job with the same key a run.
+	 * 
+	 * @param key  Name of a key.
+	 * @param output  File written by the job.
+	 */
+	void store(String key , Path output) {
+		
+		store(key , temporary -> Files.copy(output , temporary , StandardCopyOption.REPLACE_EXISTING));
+		
+	}
+	
+	/**
+	 * Stores {@code contents} under {@code key}, then deletes the entries used least recently if the directory has grown past its size.
+	 * 
+	 * @param key  Name of a key.
+	 * @param contents  Bytes written by the job.
+	 */
+	void store(String key , byte[] contents) {
+		
+		store(key , temporary -> Files.write(temporary , contents));
+		
+	}
+	
+	private interface Filler {
+		
+		void fill(Path temporary) throws IOException;
+		
+	}
+	
+	private void store(String key , Filler filler) {
+		
+		Path temporary = null;
+		try {
+			
+			temporary = Files.createTempFile(directory , key , ".tmp");
+			filler.fill(temporary);
+			long size = Files.size(temporary);
+			Path entry = directory.resolve(key + SUFFIX);
+			synchronized(this) {
+				
+				long replaced = sizeIfExists(entry);
+				Files.move(temporary , entry , StandardCopyOption.REPLACE_EXISTING , StandardCopyOption.ATOMIC_MOVE);
+				//the directory is listed when its size is first needed, which counts this entry already
+				bytes = bytes == -1 ? evict() : bytes + size - replaced;
+				if(bytes > maxBytes) bytes = evict();
+				
+			}
+			
+		} catch(IOException e) {
+			
+			try {
+				
+				if(temporary != null) Files.deleteIfExists(temporary);
+				
+			} catch(IOException ignored) {}
+			
+		}
+		
+	}
+	
+	private static long sizeIfExists(Path entry) throws IOException {
+		
+		try {
+			
+			return Files.size(entry);
+			
+		} catch(NoSuchFileException e) {
+			
+			return 0;
+			
+		}
+		
+	}
+	
+	/**
+	 * Lists the directory, deleting the entries used least recently until it is below its size.
+	 * 
+	 * @return Size of the entries left.
+	 */
+	private long evict() throws IOException {
+		
+		List<Path> entries = new ArrayList<>();
+		List<BasicFileAttributes> attributes = new ArrayList<>();
+		long total = 0;
+		try(DirectoryStream<Path> listing = Files.newDirectoryStream(directory , "*" + SUFFIX)) {
+			
+			for(Path x : listing) try {
+				
+				BasicFileAttributes attribute = Files.readAttributes(x , BasicFileAttributes.class);
+				entries.add(x);
+				attributes.add(attribute);
+				total += attribute.size();
+				
+			} catch(NoSuchFileException e) {
+				
+				//another job evicted it first
+				
+			}
+			
+		}
+		
+		if(total <= maxBytes) return total;
+		Integer[] order = new Integer[entries.size()];
+		for(int i = 0 ; i < order.length ; i++) order[i] = i;
+		Arrays.sort(order , Comparator.comparing(i -> attributes.get(i).lastModifiedTime()));
+		for(int i = 0 ; i < order.length && total > maxBytes ; i++) {
+			
+			Files.deleteIfExists(entries.get(order[i]));
+			total -= attributes.get(order[i]).size();
+			
+		}
+		
+		return total;
+		
+	}
+	
+}
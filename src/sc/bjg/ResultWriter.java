@@ -3,8 +3,33 @@
  */
 package sc.bjg;
 
-import java.io.FileWriter;
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import sc.bjg.task.EditableText;
+import sc.bjg.task.TaskWriter;
+import sc.bjg.task.TextTask;
 
 /**
  * Writer for new text after all tasks have been performed.
@@ -12,11 +37,22 @@ import java.io.IOException;
 public class ResultWriter {
 
 	/**
-	 * Prepended text to the file generated which attach a programmatic message and a license message, or nothing if null. 
+	 * The programmatic message written when none is set.
+	 */
+	static final String DEFAULT_PROGRAMMATIC_MESSAGE = "/* PROGRAMMATICLY GENERATED FILE. */";
+	
+	/**
+	 * Size of the buffer the bytes of a text are counted through by {@link #bytes()}, which is cleared each time it fills.
 	 */
-	private static String 
-		programmaticMessage = "/* PROGRAMMATICLY GENERATED FILE. */" + TextReader.lineFeed ,
-		licenseMessage = null;
+	private static final int COUNTING_BUFFER_SIZE = 1 << 13;
+	
+	/**
+	 * Prepended text to the file generated which attach a programmatic message and a license message, or nothing if null. These are used by writers
+	 * not given their own messages.
+	 */
+	private static volatile String 
+		defaultProgrammaticMessage = message(DEFAULT_PROGRAMMATIC_MESSAGE) ,
+		defaultLicenseMessage = null;
 		
 	/**
 	 * Sets the text that will be written to the file above the contents of the file but below the license text. This is intended as a note to leave
@@ -26,8 +62,7 @@ public class ResultWriter {
 	 */
 	public static void setProgrammaticMessage(String message) {
 		
-		if(message != null) programmaticMessage = message + TextReader.lineFeed;
-		else programmaticMessage = null;
+		defaultProgrammaticMessage = message(message);
 		
 	}
 	
@@ -39,32 +74,288 @@ public class ResultWriter {
 	 */
 	public static void setLicenseMessage(String message) {
 		
-		if(message != null) licenseMessage = message + TextReader.lineFeed;
-		else licenseMessage = null;
+		defaultLicenseMessage = message(message);
+		
+	}
+	
+	private static String message(String message) {
+		
+		return message != null ? message + TextReader.lineFeed : null;
+		
+	}
+	
+	/**
+	 * Reads the file at {@code sourcePath} in pieces, performs {@code tasks} on it in order, and writes the result to {@code filePath} as it goes,
+	 * so that no more than a few pieces of the file are in memory at any time.
+	 * 
+	 * @param filePath  Path of the file to write.
+	 * @param sourcePath  Path of the file to read.
+	 * @param tasks  Tasks to perform, in order. Their texts are not used.
+	 * @param licenseMessage  License message to write first, or null.
+	 * @param programmaticMessage  Programmatic message to write second, or null.
+	 * @param charset  Charset of the file to write.
+	 * @throws IOException if either file cannot be read or written.
+	 * @throws IllegalArgumentException if any of {@code tasks} cannot be streamed.
+	 */
+	static void stream(
+		String filePath , 
+		String sourcePath , 
+		List<TextTask> tasks , 
+		String licenseMessage , 
+		String programmaticMessage ,
+		Charset charset
+	) throws IOException {
+		
+		try(
+			Reader reader = new LineFeedReader(new InputStreamReader(new FileInputStream(sourcePath))) ;
+			Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(filePath) , charset) , TextReader.CHUNK_SIZE)
+		) {
+			
+			writeMessages(writer , message(licenseMessage) , message(programmaticMessage));
+			
+			Writer taskWriter = writer;
+			for(int i = tasks.size() - 1 ; i >= 0 ; i--) taskWriter = new TaskWriter(taskWriter , tasks.get(i));
+			
+			char[] chunk = new char[TextReader.CHUNK_SIZE];
+			for(int read ; (read = reader.read(chunk)) != -1 ; ) taskWriter.write(chunk , 0 , read);
+			taskWriter.close();
+			
+		}
+		
+	}
+	
+	private static void writeMessages(Writer writer , String licenseMessage , String programmaticMessage) throws IOException {
+		
+		if(licenseMessage != null) writer.write(licenseMessage);
+		if(programmaticMessage != null) writer.write(programmaticMessage);
 		
 	}
 	
 	private final String 
 		filePath ,
-		writeThis;
+		licenseMessage ,
+		programmaticMessage;
+	
+	private final EditableText writeThis;
+	private final Charset charset;
 	
-	public ResultWriter(String filePath , StringBuffer taskCompletedBuffer) {
+	public ResultWriter(String filePath , EditableText taskCompletedText) {
 		
-		this.filePath = filePath;
-		this.writeThis = taskCompletedBuffer.toString();
+		this(filePath , taskCompletedText , Charset.defaultCharset());
 				
 	}
 	
+	/**
+	 * Creates a result writer which encodes text with the given charset.
+	 * 
+	 * @param filePath  Path of the file to write.
+	 * @param taskCompletedText  Text to write.
+	 * @param charset  Charset of the file.
+	 */
+	public ResultWriter(String filePath , EditableText taskCompletedText , Charset charset) {
+		
+		this.filePath = filePath;
+		this.writeThis = taskCompletedText;
+		this.licenseMessage = defaultLicenseMessage;
+		this.programmaticMessage = defaultProgrammaticMessage;
+		this.charset = Objects.requireNonNull(charset);
+		
+	}
+	
+	/**
+	 * Creates a result writer with its own messages rather than those set for all writers.
+	 * 
+	 * @param filePath  Path of the file to write.
+	 * @param taskCompletedText  Text to write.
+	 * @param licenseMessage  License message to write first, or null.
+	 * @param programmaticMessage  Programmatic message to write second, or null.
+	 * @param charset  Charset of the file.
+	 */
+	ResultWriter(String filePath , EditableText taskCompletedText , String licenseMessage , String programmaticMessage , Charset charset) {
+		
+		this.filePath = filePath;
+		this.writeThis = taskCompletedText;
+		this.licenseMessage = message(licenseMessage);
+		this.programmaticMessage = message(programmaticMessage);
+		this.charset = Objects.requireNonNull(charset);
+		
+	}
+	
+	/**
+	 * Writes the messages and text to the file. They are encoded straight from the text into pooled direct buffers, which are written with one
+	 * gathering write each time they are all full, so the text is never copied into a string or an intermediate array.
+	 * 
+	 * @throws IOException if the file cannot be written.
+	 */
 	public void write() throws IOException {
 		
-		try(FileWriter writer = new FileWriter(filePath)) {
+		CharsetEncoder encoder = encoder(charset);
+		ByteBuffer[] buffers = BufferPool.acquire();
+		try(FileChannel channel = FileChannel.open(
+			Paths.get(filePath) , 
+			StandardOpenOption.WRITE , 
+			StandardOpenOption.CREATE , 
+			StandardOpenOption.TRUNCATE_EXISTING
+		)) {
+			
+			int filling = 0;
+			if(licenseMessage != null) filling = encode(CharBuffer.wrap(licenseMessage) , false , encoder , buffers , filling , channel);
+			if(programmaticMessage != null) filling = encode(CharBuffer.wrap(programmaticMessage) , false , encoder , buffers , filling , channel);
+			filling = encode(writeThis.asCharBuffer() , true , encoder , buffers , filling , channel);
+			
+			while(encoder.flush(buffers[filling]).isOverflow()) filling = next(buffers , filling , channel);
+			drain(buffers , filling + 1 , channel);
 			
-			if(licenseMessage != null) writer.write(licenseMessage);
-			if(programmaticMessage != null) writer.write(programmaticMessage);
-			writer.write(writeThis);
+		} finally {
+			
+			BufferPool.release(buffers);
+			
+		}
 		
+	}
+	
+	/**
+	 * Writes the messages and text to the file unless the file already holds exactly the bytes that would be written, in which case it is left as
+	 * it is, along with its modification time.
+	 * 
+	 * @return Whether the file was written.
+	 * @throws IOException if the file cannot be read or written.
+	 */
+	boolean writeIfChanged() throws IOException {
+		
+		byte[] bytes = bytes();
+		Path path = Paths.get(filePath);
+		if(Files.isRegularFile(path) && Files.size(path) == bytes.length && Arrays.equals(Files.readAllBytes(path) , bytes)) return false;
+		Files.write(path , bytes);
+		return true;
+		
+	}
+	
+	/**
+	 * Adds the messages and text to an archive as one entry, rather than writing the file. They are encoded on the calling thread, so that any
+	 * number of threads may encode their entries at once while the archive's own thread writes them.
+	 * 
+	 * @param archive  Archive to add the entry to.
+	 * @param entryPath  Path of the entry within the archive.
+	 * @return Bytes of the entry.
+	 * @throws IOException if writing the archive has failed.
+	 */
+	byte[] write(ArchiveWriter archive , String entryPath) throws IOException {
+		
+		byte[] contents = bytes();
+		archive.add(entryPath , contents);
+		return contents;
+		
+	}
+	
+	/**
+	 * Encodes the messages and text as they would be written to the file, into an array of exactly their size. In a charset of at most one byte
+	 * per character they are encoded once, into an array of one byte per character, and otherwise twice, the first time only to count their bytes
+	 * through a small buffer. Either way the bytes are never held in a growing buffer, nor copied once encoded.
+	 * 
+	 * @return Bytes of the file.
+	 * @throws OutOfMemoryError if the bytes would not fit in an array.
+	 */
+	byte[] bytes() {
+		
+		CharsetEncoder encoder = encoder(charset);
+		long size = 0;
+		if(encoder.maxBytesPerChar() <= 1) for(CharBuffer x : contents()) size += x.remaining();
+		else size = encode(contents() , encoder , ByteBuffer.allocate(COUNTING_BUFFER_SIZE) , true);
+		
+		if(size > Integer.MAX_VALUE - 8) throw new OutOfMemoryError("The " + size + " bytes of " + filePath + " do not fit in an array.");
+		ByteBuffer bytes = ByteBuffer.allocate((int)size);
+		int length = (int)encode(contents() , encoder.reset() , bytes , false);
+		
+		//characters replaced two at a time, such as an unpaired surrogate followed by another, can take fewer bytes than characters
+		return length == bytes.capacity() ? bytes.array() : Arrays.copyOf(bytes.array() , length);
+		
+	}
+	
+	private CharBuffer[] contents() {
+		
+		List<CharBuffer> contents = new ArrayList<>(3);
+		if(licenseMessage != null) contents.add(CharBuffer.wrap(licenseMessage));
+		if(programmaticMessage != null) contents.add(CharBuffer.wrap(programmaticMessage));
+		contents.add(writeThis.asCharBuffer());
+		return contents.toArray(new CharBuffer[0]);
+		
+	}
+	
+	private static CharsetEncoder encoder(Charset charset) {
+		
+		return charset.newEncoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+		
+	}
+	
+	/**
+	 * Encodes {@code contents} one after another into {@code out} and returns the number of bytes they took. If {@code counting}, {@code out} is
+	 * cleared each time it fills, so that it only counts the bytes, and otherwise it must have room for all of them.
+	 */
+	private static long encode(CharBuffer[] contents , CharsetEncoder encoder , ByteBuffer out , boolean counting) {
+		
+		long count = 0;
+		for(int i = 0 ; i < contents.length ; i++) {
+			
+			CoderResult result;
+			while((result = encoder.encode(contents[i] , out , i == contents.length - 1)).isOverflow()) count = overflow(out , counting , count);
+			
+			//malformed and unmappable characters are replaced, so no other result is an error
+			if(result.isError()) throw new IllegalStateException(result.toString());
+			
 		}
 		
+		while(encoder.flush(out).isOverflow()) count = overflow(out , counting , count);
+		return count + out.position();
+		
+	}
+	
+	private static long overflow(ByteBuffer out , boolean counting , long count) {
+		
+		if(!counting) throw new IllegalStateException("Text encoded to more bytes than were counted.");
+		count += out.position();
+		out.clear();
+		return count;
+		
+	}
+	
+	/**
+	 * Encodes {@code chars} into {@code buffers}, starting with the one at index {@code filling}, and returns the index of the buffer being filled
+	 * once all of {@code chars} is encoded.
+	 */
+	private static int encode(
+		CharBuffer chars , 
+		boolean endOfInput , 
+		CharsetEncoder encoder , 
+		ByteBuffer[] buffers , 
+		int filling , 
+		FileChannel channel
+	) throws IOException {
+		
+		CoderResult result;
+		while((result = encoder.encode(chars , buffers[filling] , endOfInput)).isOverflow()) filling = next(buffers , filling , channel);
+		if(result.isError()) result.throwException();
+		return filling;
+		
+	}
+	
+	/**
+	 * Moves on from a full buffer, writing every buffer if it was the last.
+	 */
+	private static int next(ByteBuffer[] buffers , int filling , FileChannel channel) throws IOException {
+		
+		if(filling + 1 < buffers.length) return filling + 1;
+		drain(buffers , buffers.length , channel);
+		return 0;
+		
+	}
+	
+	private static void drain(ByteBuffer[] buffers , int count , FileChannel channel) throws IOException {
+		
+		for(int i = 0 ; i < count ; i++) buffers[i].flip();
+		while(buffers[count - 1].hasRemaining()) channel.write(buffers , 0 , count);
+		for(int i = 0 ; i < count ; i++) buffers[i].clear();
+		
 	}
 	
 }
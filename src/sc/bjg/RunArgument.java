@@ -8,8 +8,10 @@ import static java.lang.Integer.parseInt;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.LongFunction;
 
 import sc.bjg.task.AppendTask;
+import sc.bjg.task.EditableText;
 import sc.bjg.task.InsertTask;
 import sc.bjg.task.PrependTask;
 import sc.bjg.task.RemoveTask;
@@ -33,20 +35,79 @@ class RunArgument {
 				
 	}
 	
-	TextTask taskByThisType(StringBuffer buffer , TextReader reader) {
+	TextTask taskByThisType(EditableText buffer , TextReader reader) {
+		
+		TextTask task = task(type , values.subList(nextArgument , values.size()) , buffer , reader);
+		nextArgument += type.numberInputValues;
+		return task;
+		
+	}
+	
+	/**
+	 * Creates a task of the given type from its values, without an argument object to hold them.
+	 * 
+	 * @param type  Type of the task.
+	 * @param values  Values of the task, in the order they are given on the command line.
+	 * @param buffer  Text the task operates on, or null.
+	 * @param reader  Reader of the flags the task refers to.
+	 * @return New task.
+	 * @throws UnsupportedOperationException if {@code type} is not a task.
+	 */
+	static TextTask task(RunArguments type , List<String> values , EditableText buffer , TextReader reader) {
+		
+		return task(type , values , buffer , reader::getTokenByID);
+		
+	}
+	
+	/**
+	 * Creates a task of the given type from its values, finding the token it operates on with {@code tokens}.
+	 * 
+	 * @param type  Type of the task.
+	 * @param values  Values of the task, in the order they are given on the command line.
+	 * @param buffer  Text the task operates on, or null.
+	 * @param tokens  Gives the token of a flag ID.
+	 * @return New task.
+	 * @throws UnsupportedOperationException if {@code type} is not a task, or is an include, which needs the fragment it includes.
+	 */
+	static TextTask task(RunArguments type , List<String> values , EditableText buffer , LongFunction<IDedToken> tokens) {
 		
 		switch(type) {		
-			case PREPEND: return new PrependTask(buffer , reader.getTokenByID(parseLong(nextArgument())) , nextArgument());
-			case REMOVE: return new RemoveTask(buffer , reader.getTokenByID(parseLong(nextArgument())));
-			case REPLACE: return new ReplaceTask(buffer , reader.getTokenByID(parseLong(nextArgument())) , nextArgument());
-			case INSERT: return new InsertTask(buffer , reader.getTokenByID(parseLong(nextArgument())) , parseInt(nextArgument()) , nextArgument());
-			case APPEND: return new AppendTask(buffer , reader.getTokenByID(parseLong(nextArgument())) , nextArgument());
+			case PREPEND: return new PrependTask(buffer , tokens.apply(parseLong(values.get(0))) , values.get(1));
+			case REMOVE: return new RemoveTask(buffer , tokens.apply(parseLong(values.get(0))));
+			case REPLACE: return new ReplaceTask(buffer , tokens.apply(parseLong(values.get(0))) , values.get(1));
+			case INSERT: return new InsertTask(buffer , tokens.apply(parseLong(values.get(0))) , parseInt(values.get(1)) , values.get(2));
+			case APPEND: return new AppendTask(buffer , tokens.apply(parseLong(values.get(0))) , values.get(1));
 			default: throw new UnsupportedOperationException("A text task cannot be generated from a run argument of type " + type);
 				
 		}
 		
 	}
 
+	/**
+	 * Returns a new argument with the same type and values as this one, whose values can be read from the start again.
+	 * 
+	 * @return Copy of this argument.
+	 */
+	RunArgument copy() {
+		
+		RunArgument copy = new RunArgument(type);
+		copy.values.addAll(values);
+		return copy;
+		
+	}
+	
+	/**
+	 * Returns the ID of the flag a task argument operates on, which is its first value.
+	 * 
+	 * @return ID of a flag.
+	 * @throws NumberFormatException if the first value is not a number.
+	 */
+	long flagID() {
+		
+		return parseLong(values.get(0));
+		
+	}
+	
 	void addArgument(String argument) {
 
 		values.add(argument);
@@ -4,9 +4,10 @@
 package sc.bjg;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Enumeration of arguments the main method can accept.
@@ -24,9 +25,36 @@ enum RunArguments {
 	INSERT(true , true , 3 , "i" , "insert") ,
 	SET_FLAG_PREFIX(false , false , 1 , "sfp" , "setflagprefix") ,
 	SET_FLAG_SUFFIX(false , false , 1 , "sfs" , "setflagsuffix") ,
-	APPEND(true , true , 2 , "a" , "append")
+	ADD_FLAG_SYNTAX(false , true , 2 , "afs" , "addflagsyntax") ,
+	APPEND(true , true , 2 , "a" , "append") ,
+	STREAM(false , false , 0 , "s" , "stream") ,
+	CACHE(false , false , 1 , "c" , "cache") ,
+	METRICS(false , false , 1 , "m" , "metrics") ,
+	OUTPUT_CHARSET(false , false , 1 , "oc" , "outputcharset") ,
+	TABLE(false , false , 1 , "t" , "table") ,
+	POSITIONAL(false , false , 0 , "pos" , "positional") ,
+	MANIFEST(false , false , 1 , "mf" , "manifest") ,
+	LOW_MEMORY(false , false , 0 , "lm" , "lowmemory") ,
+	ARCHIVE(false , false , 1 , "z" , "archive") ,
+	ARCHIVE_LEVEL(false , false , 1 , "zl" , "archivelevel") ,
+	RESULT_CACHE(false , false , 1 , "rc" , "resultcache") ,
+	RESULT_CACHE_SIZE(false , false , 1 , "rcs" , "resultcachesize") ,
+	INCLUDE(true , true , 2 , "inc" , "include") ,
+	SPECIALIZE(false , false , 1 , "sp" , "specialize") ,
+	BYTES(false , false , 0 , "b" , "bytes")
 	;
 
+	/**
+	 * Every argument string of every argument type, mapped to its type.
+	 */
+	private static final Map<String , RunArguments> byArgument = new HashMap<>();
+	
+	static {
+		
+		for(RunArguments x : values()) for(String argument : x.validArguments) byArgument.put(argument , x);
+		
+	}
+
 	/**
 	 * Creates and returns a {@code RunArguments} which contains an argument string that matches exactly {@code from}.
 	 * 
@@ -36,14 +64,12 @@ enum RunArguments {
 	 */
 	public static RunArguments enumForArgument(String from) {
 		
-		RunArguments[] args = values();
-		for(RunArguments x : args) if(x.validArguments.stream().anyMatch(argument -> argument.equals(from))) return x;
+		RunArguments type = byArgument.get(from);
+		if(type != null) return type;
 		throw new NoSuchElementException(from + " is not a valid argument for this application.");
 		
 	}
 	
-	private AtomicInteger instances = new AtomicInteger(0);
-	
 	public final int numberInputValues; 
 	public final boolean 
 		isSafe ,
@@ -60,20 +86,36 @@ enum RunArguments {
 	}
 
 	/**
-	 * Increments the count of instances this argument has been encountered, returning whether the new instance is OK or not.
+	 * Returns whether an argument list may contain this argument {@code instances} times.
+	 * 
+	 * @param instances  Number of times this argument has been encountered.
+	 * @return {@code true} if it is OK to proceed after encountering this run argument that many times.
+	 */
+	boolean allowsInstances(int instances) {
+		
+		return canHaveMultiple || instances <= 1;
+		
+	}
+	
+	/**
+	 * Returns the shortest argument string of this type.
 	 * 
-	 * @return {@code true} if it is OK to proceed after encountering another instance of this run argument.
+	 * @return Argument string, without a leading hyphen.
 	 */
-	boolean incrementInstances() {
+	String argument() {
 		
-		int newInstances = instances.incrementAndGet();
-		return canHaveMultiple || newInstances <= 1;
+		return validArguments.get(0);
 		
 	}
 	
-	int instances() {
+	/**
+	 * Returns whether this argument gives a task to perform.
+	 * 
+	 * @return {@code true} if this is a remove argument or a safe task argument.
+	 */
+	boolean isTask() {
 		
-		return instances.get();
+		return this == REMOVE || isSafe;
 		
 	}
 	
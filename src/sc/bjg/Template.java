@@ -0,0 +1,152 @@
+/**
+ * Licensed under MIT No Attribution.
+ */
+package sc.bjg;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+import sc.bjg.task.TextPlan;
+import sc.bjg.task.TextTask;
+
+/**
+ * Text whose flags have been parsed once and compiled into a {@link TextPlan}, for using BJG as a library. A template reads no files and uses no
+ * static state, and is immutable, so any number of threads may render it at once with tasks of their own.
+ * <p>
+ * 	Tasks are created from the template's tokens with any text, or null, since rendering never uses it:
+ * </p>
+ * <pre>
+ * Template template = Template.compile(text , FlagSyntax.DEFAULT);
+ * StringBuilder result = new StringBuilder();
+ * template.render(Arrays.asList(new ReplaceTask(null , template.getTokenByID(1) , "IntReferencer")) , result);
+ * </pre>
+ * <p>
+ * 	Tasks are performed in the order given. {@link Run} performs every remove task before any other, which callers wanting the same result should
+ * 	do as well.
+ * </p>
+ */
+public class Template {
+
+	/**
+	 * Parses the flags of {@code text} and compiles it into a template. Line separators are read as they are by {@link TextReader}.
+	 * 
+	 * @param text  Text of the template.
+	 * @param syntax  Prefix and suffix of flags.
+	 * @return Compiled template.
+	 * @throws IllegalArgumentException if two flags have the same ID.
+	 * @throws NullPointerException if either parameter is null.
+	 */
+	public static Template compile(CharSequence text , FlagSyntax syntax) {
+		
+		Objects.requireNonNull(syntax);
+		StringBuilder normalized = new StringBuilder(text.length() + 1);
+		try(LineFeedReader reader = new LineFeedReader(new StringReader(text.toString()))) {
+			
+			char[] chunk = new char[TextReader.CHUNK_SIZE];
+			for(int read ; (read = reader.read(chunk)) != -1 ; ) normalized.append(chunk , 0 , read);
+			
+		} catch(IOException e) {
+			
+			//reading a string cannot fail
+			throw new UncheckedIOException(e);
+			
+		}
+		
+		TokenTable tokens = TextReader.scan(normalized , syntax , true);
+		List<String> operands = new ArrayList<>(tokens.size());
+		for(int i = 0 ; i < tokens.size() ; i++) operands.add(tokens.token(i));
+		return new Template(tokens , new TextPlan(normalized , operands));
+		
+	}
+	
+	private final TokenTable tokens;
+	private final TextPlan plan;
+	
+	private Template(TokenTable tokens , TextPlan plan) {
+		
+		this.tokens = tokens;
+		this.plan = plan;
+		
+	}
+	
+	/**
+	 * Gets the token by the given ID.
+	 * 
+	 * @param ID  The ID to find.
+	 * @return Token whose ID is the given ID.
+	 * @throws NoSuchElementException if {@code ID} does not point to an IDed token.
+	 */
+	public IDedToken getTokenByID(long ID) {
+		
+		int index = tokens.indexOf(ID);
+		if(index < 0) throw new NoSuchElementException(ID + " does not identify a IDed token.");
+		return tokens.get(index);
+		
+	}
+	
+	/**
+	 * Returns whether a flag of the given ID identifies a token of this template.
+	 * 
+	 * @param ID  The ID to find.
+	 * @return Whether {@link #getTokenByID(long)} finds a token.
+	 */
+	public boolean identifies(long ID) {
+		
+		return tokens.indexOf(ID) >= 0;
+		
+	}
+	
+	/**
+	 * Returns the number of IDed tokens of this template.
+	 * 
+	 * @return Number of tokens found.
+	 */
+	public int numberTokens() {
+		
+		return tokens.size();
+		
+	}
+	
+	/**
+	 * Invokes {@code callback} for each IDed token of this template.
+	 * 
+	 * @param callback  Code to invoke.
+	 */
+	public void forEachToken(Consumer<IDedToken> callback) {
+		
+		Objects.requireNonNull(callback);
+		for(int i = 0 ; i < tokens.size() ; i++) callback.accept(tokens.get(i));
+		
+	}
+	
+	/**
+	 * Returns the text of this template, with its line separators normalized.
+	 * 
+	 * @return Text before any task.
+	 */
+	public String text() {
+		
+		return plan.text();
+		
+	}
+	
+	/**
+	 * Appends the result of performing {@code tasks} in order on this template to {@code out}.
+	 * 
+	 * @param tasks  Tasks to perform. The text they were created with is not used, and may be null.
+	 * @param out  Destination of the result.
+	 * @throws IOException if {@code out} throws.
+	 */
+	public void render(List<TextTask> tasks , Appendable out) throws IOException {
+		
+		plan.render(tasks , out);
+		
+	}
+	
+}
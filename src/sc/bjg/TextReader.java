@@ -3,17 +3,24 @@
  */
 package sc.bjg;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.util.ArrayList;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.ListIterator;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.Arrays;
 import java.util.NoSuchElementException;
 import java.util.Objects;
-import java.util.Scanner;
 import java.util.function.Consumer;
 
+import sc.bjg.task.EditableText;
+
 /**
  * Reads a text file from the given file path, storing generator regexes in a public list.
  * <p>
@@ -28,86 +35,160 @@ import java.util.function.Consumer;
 public class TextReader {
 
 	/**
-	 * Containers for the prefix and suffix regexes to look for when trying to find identified tokens.
+	 * Prefix and suffix regexes to look for when trying to find identified tokens, if a reader is not given its own.
 	 */
-	public static List<Character> 
-		prefixChars = new ArrayList<>() ,
-		suffixChars = new ArrayList<>();
+	private static volatile FlagSyntax defaultSyntax = FlagSyntax.DEFAULT;
 	
 	public static final long MALFORMED_ID = -1l;
 	public static final char lineFeed = System.lineSeparator().charAt(0);
-
-	static {
-		
-		prefixChars.add('/');
-		prefixChars.add('*');
-		prefixChars.add('_');
-		prefixChars.add('_');
-		suffixChars.add('_');
-		suffixChars.add('_');
-		suffixChars.add('*');
-		suffixChars.add('/');
-		
-	}
 	
 	/**
-	 * Sets the prefix to look for in flags to {@code newChars}.
+	 * Number of characters read from a file at a time.
+	 */
+	static final int CHUNK_SIZE = 1 << 16;
+
+	/**
+	 * Sets the prefix to look for in flags to {@code newChars}, for readers not given their own {@link FlagSyntax}.
 	 * 
 	 * @param newChars  New characters to look for when identifying flags in text.
-	 * @throws IllegalArgumentException if {@code newChars} contains white space, which is not allowed for prefix or suffix flags.
+	 * @throws IllegalArgumentException if {@code newChars} is empty or contains white space, which is not allowed for prefix or suffix flags.
 	 */
 	public static void setPrefix(String newChars) {
 
-		setxxxfix(newChars , prefixChars);
+		defaultSyntax = defaultSyntax.withPrefix(newChars);
 		
 	}
 
 	/**
-	 * Sets the suffix to look for in flags to {@code newChars}.
+	 * Sets the suffix to look for in flags to {@code newChars}, for readers not given their own {@link FlagSyntax}.
 	 * 
 	 * @param newChars  New characters to look for when identifying flags in text.
-	 * @throws IllegalArgumentException if {@code newChars} contains white space, which is not allowed for prefix or suffix flags.
+	 * @throws IllegalArgumentException if {@code newChars} is empty or contains white space, which is not allowed for prefix or suffix flags.
 	 */
 	public static void setSuffix(String newChars) {
 		
-		setxxxfix(newChars, suffixChars);
+		defaultSyntax = defaultSyntax.withSuffix(newChars);
 		
 	}
 	
-	private static void setxxxfix(String newChars , List<Character> list) {
+	static boolean isWhiteSpace(char character) {
+		
+		return character == ' ' || character == '\t' || character == lineFeed;
+		
+	}
 
-		ListIterator<Character> chars = stringIterator(newChars);
-		list.clear();
-		while(chars.hasNext()) {
+	/**
+	 * Contents of the file read, or null if this reader was created without retaining it, or with {@link #lowMemory(String, FlagSyntax)}.
+	 */
+	public final StringBuilder sourceFile;
+	
+	private final EditableText text;
+	private final TokenTable IDedTokens;
+	
+	/**
+	 * Creates a text reader which keeps as little as it can: the text of the file, once, as {@link #text()}, and the ID, offset, and length of the
+	 * token of each flag. No token is kept as a string, but read from the text when it is asked for, so every token needed must be got from the
+	 * reader before its text is first edited. The flag cache is not used, and {@link #sourceFile} is null.
+	 * <p>
+	 * 	The text takes two bytes per character. Whenever it is edited it is copied once, as it is while the file is read unless the file decodes to
+	 * 	one character per byte and ends in a line feed, so the most memory used by the text is about four bytes per character of the file. Other
+	 * 	than that, a reader uses about thirty bytes per flag, and tasks use memory in proportion to the number of occurrences they edit rather than
+	 * 	the size of the file. A reader created by a constructor which retains the text also keeps every token as a string, and is copied once more
+	 * 	before being edited.
+	 * </p>
+	 * 
+	 * @param sourcePath  A file path to a string.
+	 * @param syntax  Prefix and suffix of flags.
+	 * @return Reader of the file.
+	 * @throws FileNotFoundException if {@code sourcePath} does not point to a readable file.
+	 * @throws NullPointerException if either parameter is null.
+	 * @throws UncheckedIOException if the file cannot be read after being opened.
+	 */
+	public static TextReader lowMemory(String sourcePath , FlagSyntax syntax) throws FileNotFoundException {
+		
+		Objects.requireNonNull(sourcePath);
+		Objects.requireNonNull(syntax);
+		
+		char[] chars;
+		try(
+			FileInputStream input = new FileInputStream(sourcePath) ; 
+			Reader reader = new LineFeedReader(new InputStreamReader(input))
+		) {
+			
+			//a file of single byte characters ending in a line feed reads into exactly one char per byte, so the text is not copied once read
+			chars = new char[(int)Math.min(input.getChannel().size() , Integer.MAX_VALUE - 8)];
+			int length = 0;
+			char[] one = new char[1];
+			while(true) {
+				
+				int read;
+				if(length < chars.length) read = reader.read(chars , length , chars.length - length);
+				else if((read = reader.read(one , 0 , 1)) == 1) {
+					
+					//the array is only grown once text is known not to have ended, and only by a little, as what is left is most often the line feed
+					//added at its end
+					chars = Arrays.copyOf(chars , (int)Math.min(chars.length + (chars.length >> 4) + 1L , Integer.MAX_VALUE - 8));
+					chars[length] = one[0];
+					
+				}
+				
+				if(read == -1) break;
+				length += read;
+				
+			}
+			
+			if(length < chars.length) chars = Arrays.copyOf(chars , length);
+			
+		} catch(FileNotFoundException e) {
 			
-			char x = chars.next();
-			if(isWhiteSpace(x)) throw new IllegalArgumentException("Flags cannot contain white space characters; " + newChars + " does.");
-			list.add(x);
+			throw e;
+			
+		} catch(IOException e) {
+			
+			throw new UncheckedIOException(e);
 			
 		}
-				
+		
+		EditableText text = EditableText.wrap(chars);
+		return new TextReader(null , text , scan(text , syntax , false));
+		
 	}
 	
-	private static ListIterator<Character> stringIterator(String source) {
-
-		char[] array = source.toCharArray();		
-		List<Character> ints = new ArrayList<>(); 
-		for(char x : array) ints.add(x);
-		return ints.listIterator();
+	/**
+	 * Creates a text reader of the contents of a file already read into memory, as {@link #TextReader(String, boolean, FlagSyntax)} would read the
+	 * file, keeping its text.
+	 * 
+	 * @param bytes  Contents of a file.
+	 * @param charset  Charset of the contents.
+	 * @param syntax  Prefix and suffix of flags.
+	 * @return Reader of the contents.
+	 */
+	static TextReader decode(byte[] bytes , Charset charset , FlagSyntax syntax) {
+		
+		StringBuilder text = new StringBuilder(bytes.length + 1);
+		try(Reader reader = new LineFeedReader(new InputStreamReader(new ByteArrayInputStream(bytes) , charset))) {
+			
+			char[] chunk = new char[CHUNK_SIZE];
+			for(int read ; (read = reader.read(chunk)) != -1 ; ) text.append(chunk , 0 , read);
+			
+		} catch(IOException e) {
+			
+			//bytes in memory cannot fail to be read
+			throw new UncheckedIOException(e);
+			
+		}
+		
+		return new TextReader(text , null , scan(text , syntax , true));
 		
 	}
 	
-	private static boolean isWhiteSpace(char character) {
+	private TextReader(StringBuilder sourceFile , EditableText text , TokenTable IDedTokens) {
 		
-		return character == ' ' || character == '\t' || character == lineFeed;
+		this.sourceFile = sourceFile;
+		this.text = text;
+		this.IDedTokens = IDedTokens;
 		
 	}
-
-	public final StringBuilder sourceFile = new StringBuilder();
-	
-	private final List<IDedToken> IDedTokens = new ArrayList<>();
-	private final List<String> allTokens = new ArrayList<>();
-	private int allTokensCurrentIndex = 0;
 	
 	/**
 	 * Creates a new text reader. The file pointed to by the given {@code sourcePath} string is read and parsed in this constructor.  
@@ -115,169 +196,263 @@ public class TextReader {
 	 * @param sourcePath  A file path to a string.
 	 * @throws FileNotFoundException if {@code sourcePath} does not point to a readable file.
 	 * @throws NullPointerException if {@code sourcePath} is null.
+	 * @throws UncheckedIOException if the file cannot be read after being opened.
 	 */
 	public TextReader(String sourcePath) throws FileNotFoundException {
 		
-		Objects.requireNonNull(sourcePath);
-				
-		Scanner scanner = new Scanner(new File(sourcePath));
-		
-		for(String line ; scanner.hasNextLine() ; ) { 
-			
-			line = scanner.nextLine();				
-			LinkedList<String> split = customSplit(line);
-			allTokens.addAll(split);
-			sourceFile.append(line).append(lineFeed);
-			
-		}			
-				
-		scanner.close();
+		this(sourcePath , true);
 		
-		while(allTokensCurrentIndex < allTokens.size()) receiveString(allTokens.get(allTokensCurrentIndex++));
-	
 	}
 	
 	/**
-	 * Gets the token by the given ID.
+	 * Creates a new text reader. The file pointed to by the given {@code sourcePath} string is read and parsed in this constructor. If
+	 * {@code retainText} is {@code false}, the file is read in pieces of bounded size and only its flags are kept, so the memory used does not depend
+	 * on the size of the file, and {@link #sourceFile} is null.
 	 * 
-	 * @param ID  The ID to find.
-	 * @return Token whose ID is the given ID.
-	 * @throws NoSuchElementException if {@code ID} does not point to an IDed token.
-	 * @throws IllegalArgumentException if {@code ID} cannot be a valid ID.
+	 * @param sourcePath  A file path to a string.
+	 * @param retainText  Whether to keep the contents of the file in {@link #sourceFile}.
+	 * @throws FileNotFoundException if {@code sourcePath} does not point to a readable file.
+	 * @throws NullPointerException if {@code sourcePath} is null.
+	 * @throws UncheckedIOException if the file cannot be read after being opened.
 	 */
-	public IDedToken getTokenByID(long ID) {
+	public TextReader(String sourcePath , boolean retainText) throws FileNotFoundException {
 		
-		if(ID == MALFORMED_ID) throw new IllegalArgumentException(ID + " is not a valid ID.");
-		for(IDedToken x : IDedTokens) if(x.ID == ID) return x;
-		throw new NoSuchElementException(ID + " does not identify a IDed token.");
+		this(sourcePath , retainText , defaultSyntax);
 		
 	}
 	
 	/**
-	 * Invokes {@code callback} for each IDed token of this reader.
+	 * Creates a new text reader which finds flags of the given syntax. The file pointed to by the given {@code sourcePath} string is read and parsed
+	 * in this constructor. If {@code retainText} is {@code false}, the file is read in pieces of bounded size and only its flags are kept, so the
+	 * memory used does not depend on the size of the file, and {@link #sourceFile} is null.
 	 * 
-	 * @param callback  Code to invoke.
+	 * @param sourcePath  A file path to a string.
+	 * @param retainText  Whether to keep the contents of the file in {@link #sourceFile}.
+	 * @param syntax  Prefix and suffix of flags.
+	 * @throws FileNotFoundException if {@code sourcePath} does not point to a readable file.
+	 * @throws NullPointerException if {@code sourcePath} or {@code syntax} is null.
+	 * @throws UncheckedIOException if the file cannot be read after being opened.
 	 */
-	public void forEachToken(Consumer<IDedToken> callback) {
+	public TextReader(String sourcePath , boolean retainText , FlagSyntax syntax) throws FileNotFoundException {
 		
-		Objects.requireNonNull(callback);
-		IDedTokens.forEach(callback);
+		this(sourcePath , retainText , syntax , null);
 		
 	}
 	
-	private void receiveString(String fromFile) {
+	/**
+	 * Creates a new text reader which finds flags of the given syntax, taking them from {@code cache} if the file has not changed since they were
+	 * cached. If they are taken from the cache, the file is not tokenized, and it is not read at all if {@code retainText} is {@code false}.
+	 * Otherwise the file is parsed as by {@link #TextReader(String, boolean, FlagSyntax)} and its flags are cached.
+	 * 
+	 * @param sourcePath  A file path to a string.
+	 * @param retainText  Whether to keep the contents of the file in {@link #sourceFile}.
+	 * @param syntax  Prefix and suffix of flags.
+	 * @param cache  Cache of parsed flags, or null to always parse the file.
+	 * @throws FileNotFoundException if {@code sourcePath} does not point to a readable file.
+	 * @throws NullPointerException if {@code sourcePath} or {@code syntax} is null.
+	 * @throws UncheckedIOException if the file cannot be read after being opened.
+	 */
+	public TextReader(String sourcePath , boolean retainText , FlagSyntax syntax , FlagCache cache) throws FileNotFoundException {
 		
-		ListIterator<Character> iter = stringIterator(fromFile);
-		receiveString(iter , true);
+		Objects.requireNonNull(sourcePath);
+		Objects.requireNonNull(syntax);
 		
-	}
-
-	private void receiveString(ListIterator<Character> chars , boolean checkFirstChar) {
+		StringBuilder text;
+		TokenTable tokens;
+		try {
+			
+			File file = new File(sourcePath);
+			FlagCache.Entry cached = cache != null && file.isFile() ? cache.read(file.toPath() , syntax) : null;
+			long 
+				modified = file.lastModified() ,
+				size = file.length();
+			
+			boolean fresh = cached != null && cached.matches(modified , size);
+			if(fresh && !retainText) {
+				
+				text = null;
+				tokens = cached.tokens;
+				
+			} else if(cache == null) {
 				
-		long ID = getIDFromFlag(chars , checkFirstChar);
-		if(ID == MALFORMED_ID) return;
-		if(IDedTokens.stream().map(token -> token.ID).anyMatch(value -> value.equals(ID))) { 
+				//retained text is tokenized once it is all read, so that a large file can be split among threads
+				tokens = retainText ? null : new TokenTable();
+				text = read(sourcePath , retainText , retainText ? null : new FlagScanner(syntax , tokens) , null);
+				if(retainText) tokens = scan(text , syntax , true);
+				
+			} else {
+				
+				//the file is only tokenized while it is read if there is no entry which its hash may match and its text is not retained
+				MessageDigest digest = FlagCache.newDigest();
+				tokens = cached == null && !retainText ? new TokenTable() : null;
+				text = read(sourcePath , retainText , tokens == null ? null : new FlagScanner(syntax , tokens) , digest);
+				byte[] hash = digest.digest();
+				
+				if(cached != null && (fresh || cached.matches(hash))) tokens = cached.tokens;
+				else if(retainText) tokens = scan(text , syntax , true);
+				else if(cached != null) {
+					
+					tokens = new TokenTable();
+					digest = FlagCache.newDigest();
+					read(sourcePath , false , new FlagScanner(syntax , tokens) , digest);
+					hash = digest.digest();
+					
+				}
+				
+				if(!fresh) cache.write(file.toPath() , syntax , modified , size , hash , tokens);
+				
+			}
 			
-			throw new IllegalArgumentException(ID + " already identifies a token.");
+		} catch(FileNotFoundException e) {
 			
-		}
-		
-		boolean isTokenNextToID = chars.hasNext();
-		
-		if(!isTokenNextToID) { 
+			throw e;
 			
-			String next = allTokens.get(allTokensCurrentIndex++);
-			if(next == null) return;
-			chars = stringIterator(next);
+		} catch(IOException e) {
 			
-		} 
-		
-		String token = nextToken(chars);
-		if(chars.hasNext()) receiveString(chars , true);		
-		IDedTokens.add(new IDedToken(ID , token));
+			throw new UncheckedIOException(e);
+			
+		}
 		
+		sourceFile = text;
+		this.text = null;
+		IDedTokens = tokens;
+	
 	}
 	
 	/**
-	 * Returns an ID from a flag. Flags are comments or textual structures within text files that identify important tokens. They will contain some
-	 * prefix and suffix, with a number in the middle, their ID. This ID is returned, or -1 is returned if there is no ID to get, either because
-	 * a flag is not present or it is malformed.
+	 * Reads the file at {@code sourcePath}, passing its text to {@code scanner} and its bytes to {@code digest}.
 	 * 
-	 * @param chars  Iterator of characters of a string. 
-	 * @param checkFirstChar  Sometimes the iterator should not start at the first char of the prefix for the flag, so if {@code true}, the first
-	 * 						   char is checked.
-	 * @return  ID for a flag, or -1.
+	 * @param sourcePath  A file path to a string.
+	 * @param retainText  Whether to return the contents of the file.
+	 * @param scanner  Scanner to find flags with, or null.
+	 * @param digest  Hash to update with the contents of the file, or null.
+	 * @return Contents of the file, or null if {@code retainText} is {@code false}.
+	 * @throws IOException if the file cannot be read.
 	 */
-	private long getIDFromFlag(ListIterator<Character> chars , boolean checkFirstChar) {
+	private static StringBuilder read(String sourcePath , boolean retainText , FlagScanner scanner , MessageDigest digest) throws IOException {
+		
+		try(
+			FileInputStream input = new FileInputStream(sourcePath) ; 
+			Reader reader = new LineFeedReader(new InputStreamReader(digest == null ? input : new DigestInputStream(input , digest)))
+		) {
+			
+			//one char per byte, plus a line feed that may be added at the end, is enough unless the encoding has multibyte characters
+			StringBuilder text = retainText ? new StringBuilder((int)Math.min(input.getChannel().size() + 1 , Integer.MAX_VALUE - 8)) : null;
+			char[] chunk = new char[CHUNK_SIZE];
+			for(int read ; (read = reader.read(chunk)) != -1 ; ) {
+				
+				if(retainText) text.append(chunk , 0 , read);
+				if(scanner != null) scanner.scan(chunk , 0 , read);
 				
-		int xxxfixIndex = checkFirstChar ? 0 : 1;
-		//iterate over the chars of the token, trying to find a substring matching the prefix list. 
-		while(chars.hasNext()) {
+			}
 			
-			char next = chars.next();
-			if(next == prefixChars.get(xxxfixIndex++)) { 
+			if(scanner != null) scanner.end();
+			return text;
 			
-				if(xxxfixIndex == prefixChars.size()) break;
+		}
+		
+	}
+	
+	/**
+	 * Finds the flags of text held in memory, scanning chunks of it in parallel if it is large enough for that to pay off.
+	 * 
+	 * @param text  Text to scan.
+	 * @param syntax  Prefix and suffix of flags.
+	 * @param keepTokens  Whether the table returned keeps its tokens, rather than reading them from {@code text}.
+	 * @return Table of the tokens found.
+	 */
+	static TokenTable scan(CharSequence text , FlagSyntax syntax , boolean keepTokens) {
+		
+		if(ParallelScan.worthwhile(text.length())) return ParallelScan.scan(text , syntax , keepTokens);
+		TokenTable tokens = keepTokens ? new TokenTable() : new TokenTable(text);
+		FlagScanner scanner = new FlagScanner(syntax , tokens);
+		char[] chunk = new char[CHUNK_SIZE];
+		for(int i = 0 ; i < text.length() ; i += CHUNK_SIZE) {
 			
-			} else xxxfixIndex = 0;
+			int end = Math.min(i + CHUNK_SIZE , text.length());
+			getChars(text , i , end , chunk);
+			scanner.scan(chunk , 0 , end - i);
 			
 		}
-
-		if(xxxfixIndex == 0) return -1;
-		//start at 1 because the first value of the suffixChars will be found when getting the ID 
-		xxxfixIndex = 1;
-		char next = 0;		
-		StringBuilder IDBuilder = new StringBuilder();
-		//get the chars of the ID
-		//TODO: allow for different codices (we currently - 48 to get a character, which I believe will work for ASCII, UTF8, and UTF16)
-		while(chars.hasNext() && (next = chars.next()) != suffixChars.get(0)) IDBuilder.append(next - 48);
-		if(IDBuilder.length() == 0) return -1;
-		//ensure the suffix is correct
-		while(xxxfixIndex < suffixChars.size()) if(!chars.hasNext() || chars.next() != suffixChars.get(xxxfixIndex++)) return -1;		
-		return Long.parseLong(IDBuilder.toString());
-					
+		
+		scanner.end();
+		return tokens;
+		
 	}
 	
-	private String nextToken(ListIterator<Character> chars) {
+	/**
+	 * Copies characters {@code from} to {@code to} of {@code text} to the start of {@code chars}, in one piece for the kinds of text readers hold.
+	 */
+	static void getChars(CharSequence text , int from , int to , char[] chars) {
 		
-		StringBuilder builder = new StringBuilder();
-		//go until another whitespace or comment char is found
-		char next = 0;
-		while((chars.hasNext() && (next = chars.next()) != '/')) builder.append((char)next);
-		chars.previous();
-		return builder.toString();
+		if(text instanceof StringBuilder) ((StringBuilder)text).getChars(from , to , chars , 0);
+		else if(text instanceof EditableText) ((EditableText)text).getChars(from , to , chars , 0);
+		else if(text instanceof String) ((String)text).getChars(from , to , chars , 0);
+		else for(int i = from ; i < to ; i++) chars[i - from] = text.charAt(i);
 		
 	}
-
-	private LinkedList<String> customSplit(String line) {
+	
+	/**
+	 * Returns the text of a reader created by {@link #lowMemory(String, FlagSyntax)}, which tasks may edit in place once every token needed has
+	 * been got from the reader.
+	 * 
+	 * @return Text of the file read, or null if this reader was created by a constructor.
+	 */
+	public EditableText text() {
 		
-		LinkedList<String> splits = new LinkedList<>();
+		return text;
 		
-		ListIterator<Character> iter = stringIterator(line);
-		StringBuilder builder = new StringBuilder();
-		while(iter.hasNext()) {
-			
-			char next = iter.next();
-			if(isWhiteSpace(next)) {
-				
-				if(builder.length() > 0) {
-					
-					splits.add(builder.toString());
-					builder.setLength(0);
-					
-				}
-				
-				continue;
-				
-			}
-			
-			builder.append(next);
-			
-		}
+	}
+	
+	/**
+	 * Gets the token by the given ID.
+	 * 
+	 * @param ID  The ID to find.
+	 * @return Token whose ID is the given ID.
+	 * @throws NoSuchElementException if {@code ID} does not point to an IDed token.
+	 * @throws IllegalArgumentException if {@code ID} cannot be a valid ID.
+	 */
+	public IDedToken getTokenByID(long ID) {
+		
+		if(ID == MALFORMED_ID) throw new IllegalArgumentException(ID + " is not a valid ID.");
+		int index = IDedTokens.indexOf(ID);
+		if(index >= 0) return IDedTokens.get(index);
+		throw new NoSuchElementException(ID + " does not identify a IDed token.");
+		
+	}
+	
+	/**
+	 * Returns whether a flag of the given ID identifies a token of this reader.
+	 * 
+	 * @param ID  The ID to find.
+	 * @return Whether {@link #getTokenByID(long)} finds a token.
+	 */
+	boolean identifies(long ID) {
+		
+		return IDedTokens.indexOf(ID) >= 0;
+		
+	}
+	
+	/**
+	 * Returns the number of IDed tokens of this reader.
+	 * 
+	 * @return Number of tokens found.
+	 */
+	public int numberTokens() {
 		
-		splits.add(builder.toString());
+		return IDedTokens.size();
 		
-		return splits;
+	}
+	
+	/**
+	 * Invokes {@code callback} for each IDed token of this reader.
+	 * 
+	 * @param callback  Code to invoke.
+	 */
+	public void forEachToken(Consumer<IDedToken> callback) {
+		
+		Objects.requireNonNull(callback);
+		for(int i = 0 ; i < IDedTokens.size() ; i++) callback.accept(IDedTokens.get(i));
 		
 	}
 	
@@ -0,0 +1,206 @@
+/**
+ * Licensed under MIT No Attribution.
+ */
+package sc.bjg;
+
+import java.util.Arrays;
+
+/**
+ * Identified tokens in the order they were recorded, stored as parallel arrays of IDs, offsets, and token strings rather than one object each.
+ * Tokens are found by ID through an open addressing hash index over the ID array, so recording and finding a token take constant time no matter
+ * how many tokens there are, and no ID is ever boxed.
+ * <p>
+ * 	A table may instead keep only the length of each token and read the token from the text it was found in whenever it is asked for, so no token
+ * 	string is held at all. Such a table must only be asked for tokens while that text is as it was when the tokens were found.
+ * </p>
+ */
+class TokenTable {
+
+	private long[]
+		IDs = new long[16] ,
+		offsets = new long[16];
+
+	private int[] lengths = new int[16];
+	
+	/**
+	 * Tokens in the order they were recorded, or null if they are read from {@link #text}.
+	 */
+	private String[] tokens;
+	private final CharSequence text;
+	
+	/**
+	 * Slots of the hash index, each holding one more than the index of a token, or 0 if empty. The index is kept at most half full.
+	 */
+	private int[] slots = new int[32];
+	private int size = 0;
+	
+	/**
+	 * Creates a table which keeps each token it records.
+	 */
+	TokenTable() {
+		
+		text = null;
+		tokens = new String[16];
+		
+	}
+	
+	/**
+	 * Creates a table which reads each token from {@code text} when asked for it, rather than keeping it.
+	 * 
+	 * @param text  Text tokens are found in, which must not change while tokens are asked for.
+	 */
+	TokenTable(CharSequence text) {
+		
+		this.text = text;
+		
+	}
+	
+	/**
+	 * Returns whether this table keeps the tokens it records, rather than reading them from text.
+	 * 
+	 * @return {@code true} if recorded tokens are kept.
+	 */
+	boolean keepsTokens() {
+		
+		return tokens != null;
+		
+	}
+	
+	/**
+	 * Records a token.
+	 * 
+	 * @param ID  ID of the token, which must not already be recorded.
+	 * @param token  The token.
+	 * @param offset  Offset in the source text of the first character of the token.
+	 */
+	void add(long ID , String token , long offset) {
+		
+		add(ID , token , offset , token.length());
+		
+	}
+	
+	/**
+	 * Records a token, which may be null if this table does not {@link #keepsTokens() keep tokens}.
+	 * 
+	 * @param ID  ID of the token, which must not already be recorded.
+	 * @param token  The token, or null.
+	 * @param offset  Offset in the source text of the first character of the token.
+	 * @param length  Number of characters of the token.
+	 */
+	void add(long ID , String token , long offset , int length) {
+		
+		if(size == IDs.length) {
+			
+			int capacity = size * 2;
+			IDs = Arrays.copyOf(IDs , capacity);
+			offsets = Arrays.copyOf(offsets , capacity);
+			lengths = Arrays.copyOf(lengths , capacity);
+			if(tokens != null) tokens = Arrays.copyOf(tokens , capacity);
+			
+		}
+		
+		IDs[size] = ID;
+		offsets[size] = offset;
+		lengths[size] = length;
+		if(tokens != null) tokens[size] = token;
+		size++;
+		if(size * 2 > slots.length) rehash(slots.length * 2);
+		else slots[emptySlot(ID)] = size;
+		
+	}
+	
+	/**
+	 * Returns the index of the token of the given ID, or -1 if no token has that ID.
+	 * 
+	 * @param ID  ID to find.
+	 * @return Index of the token, in the order tokens were recorded.
+	 */
+	int indexOf(long ID) {
+		
+		int mask = slots.length - 1;
+		for(int slot = hash(ID) & mask ; slots[slot] != 0 ; slot = (slot + 1) & mask) if(IDs[slots[slot] - 1] == ID) return slots[slot] - 1;
+		return -1;
+		
+	}
+	
+	int size() {
+		
+		return size;
+		
+	}
+	
+	long ID(int index) {
+		
+		return IDs[index];
+		
+	}
+	
+	String token(int index) {
+		
+		if(tokens != null) return tokens[index];
+		int offset = (int)offsets[index];
+		return text.subSequence(offset , offset + lengths[index]).toString();
+		
+	}
+	
+	int length(int index) {
+		
+		return lengths[index];
+		
+	}
+	
+	/**
+	 * Records the token at {@code index} of another table, reading it from that table's text if this table keeps tokens and that one does not.
+	 * 
+	 * @param from  Table to copy a token from.
+	 * @param index  Index of the token in {@code from}.
+	 */
+	void add(TokenTable from , int index) {
+		
+		add(from.IDs[index] , tokens == null ? null : from.token(index) , from.offsets[index] , from.lengths[index]);
+		
+	}
+	
+	long offset(int index) {
+		
+		return offsets[index];
+		
+	}
+	
+	/**
+	 * Creates a token object for the token at {@code index}.
+	 * 
+	 * @param index  Index of a token.
+	 * @return New token object.
+	 */
+	IDedToken get(int index) {
+		
+		return new IDedToken(IDs[index] , token(index) , offsets[index]);
+		
+	}
+	
+	private void rehash(int capacity) {
+		
+		slots = new int[capacity];
+		for(int i = 0 ; i < size ; i++) slots[emptySlot(IDs[i])] = i + 1;
+		
+	}
+	
+	private int emptySlot(long ID) {
+		
+		int mask = slots.length - 1;
+		int slot = hash(ID) & mask;
+		while(slots[slot] != 0) slot = (slot + 1) & mask;
+		return slot;
+		
+	}
+	
+	private static int hash(long ID) {
+		
+		//IDs are often consecutive, so their bits are spread over the whole int before being masked
+		long mixed = ID * 0x9E3779B97F4A7C15L;
+		return (int)(mixed ^ (mixed >>> 32));
+		
+	}
+	
+}
@@ -0,0 +1,318 @@
+/**
+ * Licensed under MIT No Attribution.
+ */
+package sc.bjg;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Table of variants of one template, each row of which gives the tasks to perform for one variant.
+ * <p>
+ * 	A column is named after the task argument it gives, followed by every value of that argument except the last, separated by spaces. The cells
+ * 	of the column are the last value, so a column {@code rp 1} replaces the token of flag 1 with each row's cell, and a column {@code i 7 1}
+ * 	inserts each row's cell one character into the token of flag 7. The cells of a remove column, such as {@code rm 2}, only say whether to
+ * 	remove. An empty cell means the row does not perform that column's task at all. A column {@code name} names each row, which is otherwise
+ * 	named by its number, starting at 1.
+ * </p>
+ * <p>
+ * 	A table is read from a CSV file, whose first row names the columns, or from a properties file, whose keys are the name of a row and the name
+ * 	of a column, separated by periods rather than spaces, such as {@code Int.rp.1=IntReferencer}. Rows and columns are in the order their first
+ * 	keys are written in the file, as they are in a CSV file.
+ * </p>
+ */
+class VariantTable {
+
+	static final String NAME = "name";
+	
+	/**
+	 * Reads a table from a properties file if {@code path} ends in {@code .properties}, and from a CSV file otherwise. Either is read as UTF-8.
+	 * 
+	 * @param path  Path of the table.
+	 * @return The table.
+	 * @throws IOException if the file cannot be read.
+	 * @throws IllegalArgumentException if a column does not name a task argument and the right number of its values.
+	 */
+	static VariantTable read(String path) throws IOException {
+		
+		return path.endsWith(".properties") ? readProperties(path) : readCSV(new String(Files.readAllBytes(Paths.get(path)) , StandardCharsets.UTF_8));
+		
+	}
+	
+	private static VariantTable readProperties(String path) throws IOException {
+		
+		//properties do not keep the order of their keys, so it is recorded as they are loaded
+		Set<String> keys = new LinkedHashSet<>();
+		Properties properties = new Properties() {
+			
+			private static final long serialVersionUID = 1L;
+			
+			@Override public synchronized Object put(Object key , Object value) {
+				
+				keys.add((String)key);
+				return super.put(key , value);
+				
+			}
+			
+		};
+		
+		try(Reader reader = new InputStreamReader(new FileInputStream(path) , StandardCharsets.UTF_8)) {
+			
+			properties.load(reader);
+			
+		}
+		
+		Map<String , Map<String , String>> rows = new LinkedHashMap<>();
+		Set<String> columns = new LinkedHashSet<>();
+		columns.add(NAME);
+		for(String key : keys) {
+			
+			int split = key.indexOf('.');
+			if(split <= 0) throw new IllegalArgumentException(key + " does not name a row and a column.");
+			String column = key.substring(split + 1).replace('.' , ' ');
+			columns.add(column);
+			rows.computeIfAbsent(key.substring(0 , split) , name -> new HashMap<>()).put(column , properties.getProperty(key));
+			
+		}
+		
+		List<String> columnList = new ArrayList<>(columns);
+		List<String[]> cells = new ArrayList<>(rows.size());
+		rows.forEach((name , row) -> {
+			
+			String[] cellRow = new String[columnList.size()];
+			cellRow[0] = name;
+			for(int i = 1 ; i < cellRow.length ; i++) cellRow[i] = row.getOrDefault(columnList.get(i) , "");
+			cells.add(cellRow);
+			
+		});
+		
+		return new VariantTable(columnList , cells);
+		
+	}
+	
+	/**
+	 * Parses CSV text, whose cells may be quoted with double quotes, within which a doubled double quote stands for one.
+	 */
+	static VariantTable readCSV(String text) {
+		
+		List<String[]> rows = new ArrayList<>();
+		List<String> row = new ArrayList<>();
+		StringBuilder cell = new StringBuilder();
+		boolean quoted = false , lineEmpty = true;
+		for(int i = 0 ; i < text.length() ; i++) {
+			
+			char x = text.charAt(i);
+			if(quoted) {
+				
+				if(x != '"') cell.append(x);
+				else if(i + 1 < text.length() && text.charAt(i + 1) == '"') cell.append(text.charAt(i++));
+				else quoted = false;
+				continue;
+				
+			}
+			
+			if(x == '"') quoted = true;
+			else if(x == ',') {
+				
+				row.add(cell.toString());
+				cell.setLength(0);
+				
+			} else if(x == '\n' || x == '\r') {
+				
+				if(x == '\r' && i + 1 < text.length() && text.charAt(i + 1) == '\n') i++;
+				if(!lineEmpty) {
+					
+					row.add(cell.toString());
+					rows.add(row.toArray(new String[0]));
+					
+				}
+				
+				row.clear();
+				cell.setLength(0);
+				lineEmpty = true;
+				continue;
+				
+			} else cell.append(x);
+			lineEmpty = false;
+			
+		}
+		
+		if(!lineEmpty) {
+			
+			row.add(cell.toString());
+			rows.add(row.toArray(new String[0]));
+			
+		}
+		
+		if(rows.isEmpty()) throw new IllegalArgumentException("A table of variants needs a row naming its columns.");
+		List<String> columns = new ArrayList<>(Arrays.asList(rows.remove(0)));
+		for(int i = 0 ; i < columns.size() ; i++) columns.set(i , columns.get(i).trim());
+		for(String[] x : rows) if(x.length != columns.size()) throw new IllegalArgumentException(
+			"Every row of a table of variants needs " + columns.size() + " cells, but one has " + x.length + ": " + String.join("," , x)
+		);
+		
+		return new VariantTable(columns , rows);
+		
+	}
+	
+	/**
+	 * Creates the table of variants specializing a generic template for each of {@code primitives}, with a row for each, named by
+	 * {@link Primitive#title()}, and a column for each argument whose last value has a placeholder of {@link Primitive}, giving that value for the
+	 * row's primitive. Arguments without a placeholder are the same for every primitive.
+	 * <p>
+	 * 	Flags no argument operates on are specialized as well, if their token is one {@link Primitive} knows: a declaration of the type parameter,
+	 * 	such as {@code <T>}, is removed, the type parameter is replaced by the primitive, and {@code null} by its default value.
+	 * 	The type parameter is the one a flagged declaration names, or {@link Primitive#DEFAULT_PARAMETER} if no declaration is flagged.
+	 * </p>
+	 * 
+	 * @param primitives  Primitive types to specialize for.
+	 * @param arguments  Arguments of the job.
+	 * @param reader  Flags of the template.
+	 * @return The table.
+	 */
+	static VariantTable specialize(List<Primitive> primitives , List<RunArgument> arguments , TextReader reader) {
+		
+		List<String> columns = new ArrayList<>();
+		List<String> templates = new ArrayList<>();
+		columns.add(NAME);
+		Set<Long> operatedOn = new HashSet<>();
+		for(RunArgument x : arguments) {
+			
+			if(x.type.isSafe || x.type == RunArguments.REMOVE) operatedOn.add(x.flagID());
+			if(!Primitive.isTemplate(x)) continue;
+			List<String> words = new ArrayList<>(x.values);
+			templates.add(words.remove(words.size() - 1));
+			words.add(0 , x.type.argument());
+			columns.add(String.join(" " , words));
+			
+		}
+		
+		List<IDedToken> tokens = new ArrayList<>();
+		reader.forEachToken(tokens::add);
+		String parameter = Primitive.DEFAULT_PARAMETER;
+		for(IDedToken x : tokens) if(Primitive.declaredParameter(x.token()) != null) parameter = Primitive.declaredParameter(x.token());
+		for(IDedToken x : tokens) if(!operatedOn.contains(x.ID())) {
+			
+			String placeholder = Primitive.placeholderOf(x.token() , parameter);
+			if(Primitive.declaredParameter(x.token()) != null) {
+				
+				templates.add(Boolean.TRUE.toString());
+				columns.add(RunArguments.REMOVE.argument() + " " + x.ID());
+				
+			} else if(placeholder != null) {
+				
+				templates.add(placeholder);
+				columns.add(RunArguments.REPLACE.argument() + " " + x.ID());
+				
+			}
+			
+		}
+		
+		List<String[]> rows = new ArrayList<>(primitives.size());
+		for(Primitive x : primitives) {
+			
+			String[] row = new String[columns.size()];
+			row[0] = x.title();
+			for(int i = 1 ; i < row.length ; i++) row[i] = x.expand(templates.get(i - 1));
+			rows.add(row);
+			
+		}
+		
+		return new VariantTable(columns , rows);
+		
+	}
+	
+	private final List<String> columns;
+	private final List<String[]> rows;
+	private final int nameColumn;
+	
+	private VariantTable(List<String> columns , List<String[]> rows) {
+		
+		this.columns = columns;
+		this.rows = rows;
+		nameColumn = columns.indexOf(NAME);
+		
+		//every column is checked once here rather than once per row
+		for(String x : columns) if(!x.equals(NAME)) argument(x , "");
+		
+	}
+	
+	int size() {
+		
+		return rows.size();
+		
+	}
+	
+	/**
+	 * Returns the name of a row.
+	 * 
+	 * @param row  Index of a row.
+	 * @return Its name.
+	 */
+	String name(int row) {
+		
+		return nameColumn == -1 ? Integer.toString(row + 1) : rows.get(row)[nameColumn];
+		
+	}
+	
+	/**
+	 * Returns the cell of a row in the column of the given name, or null if there is no such column.
+	 * 
+	 * @param row  Index of a row.
+	 * @param column  Name of a column.
+	 * @return The cell.
+	 */
+	String cell(int row , String column) {
+		
+		int index = columns.indexOf(column);
+		return index == -1 ? null : rows.get(row)[index];
+		
+	}
+	
+	/**
+	 * Creates the task arguments of a row.
+	 * 
+	 * @param row  Index of a row.
+	 * @return New arguments for the tasks of the row.
+	 */
+	List<RunArgument> arguments(int row) {
+		
+		List<RunArgument> arguments = new ArrayList<>();
+		String[] cells = rows.get(row);
+		for(int i = 0 ; i < cells.length ; i++) if(i != nameColumn && !cells[i].isEmpty()) arguments.add(argument(columns.get(i) , cells[i]));
+		return arguments;
+		
+	}
+	
+	private static RunArgument argument(String column , String cell) {
+		
+		String[] words = column.trim().split("\\s+");
+		RunArguments type = RunArguments.enumForArgument(words[0].startsWith("-") ? words[0].substring(1) : words[0]);
+		int values = type == RunArguments.REMOVE ? type.numberInputValues : type.numberInputValues - 1;
+		if(!(type.isSafe || type == RunArguments.REMOVE) || words.length - 1 != values) throw new IllegalArgumentException(
+			column + " does not name a task argument followed by all but its last value."
+		);
+		
+		RunArgument argument = new RunArgument(type);
+		for(int i = 1 ; i < words.length ; i++) argument.addArgument(words[i]);
+		if(type != RunArguments.REMOVE) argument.addArgument(cell);
+		return argument;
+		
+	}
+	
+}
@@ -0,0 +1,170 @@
+/**
+ * Licensed under MIT No Attribution.
+ */
+package sc.bjg;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entrypoint class for regenerating files whenever their inputs change. The arguments of each job are given as they would be to
+ * {@link Run#main(String...)}, and jobs are separated by {@code --}. They may begin with {@code -debounce} and a number of milliseconds, 200 by
+ * default, for which the inputs must be left alone before their outputs are regenerated, so that a burst of changes, as editors and version
+ * control make, regenerates each output once.
+ * <p>
+ * 	Every output is generated once at the start, and afterward only the outputs of inputs which changed are. Each input is parsed once per
+ * 	change however many jobs read it, and the parse is kept until the input changes again. An output whose bytes would not change is not written,
+ * 	so its modification time does not change either, except for streamed outputs and tables of variants, which are always written.
+ * </p>
+ */
+public class Watch {
+
+	/**
+	 * The main method of watch mode. It returns only if it is interrupted or watching fails.
+	 * 
+	 * @param args  Arguments to the application.
+	 * @throws IOException if the directories of the inputs cannot be watched.
+	 * @throws InterruptedException if interrupted while waiting for changes.
+	 */
+	public static void main(String... args) throws IOException , InterruptedException {
+		
+		long debounce = 200;
+		int start = 0;
+		if(args.length > 1 && args[0].equals("-debounce")) {
+			
+			debounce = Long.parseLong(args[1]);
+			start = 2;
+			
+		}
+		
+		Map<Path , List<Job>> jobsByInput = new LinkedHashMap<>();
+		for(String[] x : Batch.split(args , start)) {
+			
+			Job job = Job.parse(x);
+			jobsByInput.computeIfAbsent(Paths.get(job.inputPath()).toAbsolutePath().normalize() , input -> new ArrayList<>()).add(job);
+			
+		}
+		
+		new Watch(jobsByInput , debounce).watch();
+		
+	}
+	
+	private final Map<Path , List<Job>> jobsByInput;
+	/**
+	 * Parses of inputs by path and flag syntax, which are kept until their input changes.
+	 */
+	private final Map<String , TextReader> parses = new HashMap<>();
+	private final long debounce;
+	
+	private Watch(Map<Path , List<Job>> jobsByInput , long debounce) {
+		
+		this.jobsByInput = jobsByInput;
+		this.debounce = debounce;
+		
+	}
+	
+	private void watch() throws IOException , InterruptedException {
+		
+		try(WatchService watcher = FileSystems.getDefault().newWatchService()) {
+			
+			Set<Path> directories = new LinkedHashSet<>();
+			for(Path x : jobsByInput.keySet()) directories.add(x.getParent());
+			for(Path x : directories) x.register(watcher , ENTRY_CREATE , ENTRY_MODIFY);
+			
+			regenerate(jobsByInput.keySet());
+			while(true) {
+				
+				Set<Path> changed = new LinkedHashSet<>();
+				changed(watcher.take() , changed);
+				
+				//changes keep being collected until none have come for as long as the debounce
+				for(WatchKey key ; (key = watcher.poll(debounce , TimeUnit.MILLISECONDS)) != null ; ) changed(key , changed);
+				regenerate(changed);
+				
+			}
+			
+		}
+		
+	}
+	
+	/**
+	 * Adds the inputs changed by the events of {@code key} to {@code changed}, and resets the key.
+	 */
+	private void changed(WatchKey key , Set<Path> changed) {
+		
+		Path directory = (Path)key.watchable();
+		for(WatchEvent<?> x : key.pollEvents()) {
+			
+			//events were lost, so any input may have changed
+			if(x.kind() == OVERFLOW) changed.addAll(jobsByInput.keySet());
+			else {
+				
+				Path input = directory.resolve((Path)x.context()).toAbsolutePath().normalize();
+				if(jobsByInput.containsKey(input)) changed.add(input);
+				
+			}
+			
+		}
+		
+		key.reset();
+		
+	}
+	
+	private void regenerate(Set<Path> inputs) {
+		
+		for(Path x : inputs) parses.keySet().removeIf(key -> key.startsWith(x + "\0"));
+		for(Path input : inputs) for(Job x : jobsByInput.get(input)) {
+			
+			try {
+				
+				boolean written = x.run(x.acceptsParsedInput() ? parse(input , x) : null , true);
+				System.out.println((written ? "Generated " : "Unchanged ") + x.outputPath());
+				
+			} catch(Exception e) {
+				
+				//a template saved half way through editing should not stop the watch
+				System.err.println("Failed to generate " + x.outputPath() + " from " + x.inputPath() + ":");
+				e.printStackTrace();
+				
+			}
+			
+		}
+		
+	}
+	
+	/**
+	 * Returns the parse of {@code input} with the flag syntax of {@code job}, parsing it only if it has not been parsed since it last changed.
+	 */
+	private TextReader parse(Path input , Job job) throws IOException {
+		
+		String key = input + "\0" + job.syntax();
+		TextReader parsed = parses.get(key);
+		if(parsed == null) {
+			
+			parsed = job.parse();
+			parses.put(key , parsed);
+			
+		}
+		
+		return parsed;
+		
+	}
+	
+}
@@ -14,22 +14,35 @@ public class AppendTask extends TextTask {
 		token ,
 		append;
 	
-	public AppendTask(StringBuffer source , IDedToken token , String append) {
+	public AppendTask(EditableText source , IDedToken token , String append) {
 	
-		super(source);
+		super(source , token);
 		this.token = token.token();
 		this.append =append;
 	
 	}
 
-	@Override public void run() {
+	@Override String operand() {
 
-		final int 
-			tokenLength = token.length() ,
-			totalLength = tokenLength + append.length();
-				
-		super.forEachOccurenceOf(token , totalLength , index -> copy.insert(index + tokenLength , append));
-		
+		return token;
+
+	}
+
+	@Override int editOffset() {
+
+		return token.length();
+
+	}
+
+	@Override int deleteLength() {
+
+		return 0;
+
+	}
+
+	@Override String insertText() {
+
+		return append;
 
 	}
 
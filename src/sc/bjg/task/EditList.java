@@ -0,0 +1,145 @@
+/**
+ * Licensed under MIT No Attribution.
+ */
+package sc.bjg.task;
+
+import java.util.Arrays;
+
+/**
+ * Ordered list of edits made against one snapshot of an {@link EditableText}. An edit deletes some number of characters at an offset and inserts
+ * some text in their place. None of the edits change the snapshot; the edited text is built afterwards in one linear pass by
+ * {@link EditableText#apply(EditList)}.
+ */
+public class EditList {
+
+	private final int sourceLength;
+
+	private int[]
+		offsets = new int[16] ,
+		deleteLengths = new int[16];
+
+	private String[] inserts = new String[16];
+	private int size = 0;
+	private boolean sorted = true;
+
+	/**
+	 * Creates an empty edit list for a snapshot of {@code sourceLength} characters.
+	 *
+	 * @param sourceLength  Length of the text the edits are made against.
+	 */
+	public EditList(int sourceLength) {
+
+		this.sourceLength = sourceLength;
+
+	}
+
+	/**
+	 * Adds an edit. Edits may be added in any order, but edits at the same offset are applied in the order they were added, and no two edits may
+	 * delete the same character.
+	 *
+	 * @param offset  Index in the snapshot of the first character to delete, or of the character to insert in front of.
+	 * @param deleteLength  Number of characters to delete.
+	 * @param insert  Text to insert in place of the deleted characters.
+	 * @throws StringIndexOutOfBoundsException if the edit does not lie within the snapshot.
+	 */
+	public void add(int offset , int deleteLength , String insert) {
+
+		if(offset < 0 || deleteLength < 0 || offset + deleteLength > sourceLength) throw new StringIndexOutOfBoundsException(
+			"An edit at " + offset + " deleting " + deleteLength + " characters does not fit in text of length " + sourceLength
+		);
+
+		if(size == offsets.length) {
+
+			offsets = Arrays.copyOf(offsets , size * 2);
+			deleteLengths = Arrays.copyOf(deleteLengths , size * 2);
+			inserts = Arrays.copyOf(inserts , size * 2);
+
+		}
+
+		if(size > 0 && offset < offsets[size - 1]) sorted = false;
+		offsets[size] = offset;
+		deleteLengths[size] = deleteLength;
+		inserts[size++] = insert;
+
+	}
+
+	/**
+	 * Returns the number of edits in this list.
+	 *
+	 * @return Number of edits.
+	 */
+	public int size() {
+
+		return size;
+
+	}
+
+	int sourceLength() {
+
+		return sourceLength;
+
+	}
+
+	/**
+	 * Builds the edited text from {@code source}, which must be the snapshot these edits were made against.
+	 *
+	 * @param source  Characters of the snapshot.
+	 * @param insertedAt  If not null, receives for each edit, in order of offset, the index in the result where its inserted text begins.
+	 * @return The edited text, sized exactly.
+	 * @throws IllegalStateException if two edits delete the same character.
+	 */
+	char[] materialize(char[] source , int[] insertedAt) {
+
+		if(!sorted) sort();
+
+		long resultLength = sourceLength;
+		for(int i = 0 ; i < size ; i++) resultLength += inserts[i].length() - deleteLengths[i];
+		if(resultLength > Integer.MAX_VALUE) throw new OutOfMemoryError("Edited text would be " + resultLength + " characters long.");
+
+		char[] result = new char[(int)resultLength];
+		int cursor = 0 , written = 0;
+		for(int i = 0 ; i < size ; i++) {
+
+			int offset = offsets[i];
+			if(offset < cursor) throw new IllegalStateException("Edits at " + offset + " and before it overlap.");
+			System.arraycopy(source , cursor , result , written , offset - cursor);
+			written += offset - cursor;
+			if(insertedAt != null) insertedAt[i] = written;
+			inserts[i].getChars(0 , inserts[i].length() , result , written);
+			written += inserts[i].length();
+			cursor = offset + deleteLengths[i];
+
+		}
+
+		System.arraycopy(source , cursor , result , written , sourceLength - cursor);
+		return result;
+
+	}
+
+	/**
+	 * Orders edits by offset, keeping edits at the same offset in the order they were added.
+	 */
+	private void sort() {
+
+		Integer[] order = new Integer[size];
+		for(int i = 0 ; i < size ; i++) order[i] = i;
+		Arrays.sort(order , (a , b) -> Integer.compare(offsets[a] , offsets[b]));
+
+		int[] sortedOffsets = new int[size] , sortedDeleteLengths = new int[size];
+		String[] sortedInserts = new String[size];
+		for(int i = 0 ; i < size ; i++) {
+
+			sortedOffsets[i] = offsets[order[i]];
+			sortedDeleteLengths[i] = deleteLengths[order[i]];
+			sortedInserts[i] = inserts[order[i]];
+
+		}
+
+		offsets = sortedOffsets;
+		deleteLengths = sortedDeleteLengths;
+		inserts = sortedInserts;
+		sorted = true;
+
+	}
+
+}
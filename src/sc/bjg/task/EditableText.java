@@ -0,0 +1,180 @@
+/**
+ * Licensed under MIT No Attribution.
+ */
+package sc.bjg.task;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.util.Objects;
+
+/**
+ * Text operated on by tasks. Between calls to {@link #apply(EditList)} the text never changes, so tasks read it as an immutable snapshot and
+ * describe their changes as an {@link EditList}. Applying a list builds the next snapshot in one linear pass, no matter how many edits it holds.
+ */
+public class EditableText implements CharSequence {
+
+	private char[] text;
+
+	/**
+	 * Creates editable text whose first snapshot is a copy of {@code source}.
+	 *
+	 * @param source  Initial contents.
+	 * @throws NullPointerException if {@code source} is null.
+	 */
+	public EditableText(CharSequence source) {
+
+		Objects.requireNonNull(source);
+		text = new char[source.length()];
+		if(source instanceof String) ((String)source).getChars(0 , text.length , text , 0);
+		else if(source instanceof StringBuilder) ((StringBuilder)source).getChars(0 , text.length , text , 0);
+		else for(int i = 0 ; i < text.length ; i++) text[i] = source.charAt(i);
+
+	}
+
+	/**
+	 * Creates an edit list for the current snapshot.
+	 *
+	 * @return Empty edit list.
+	 */
+	public EditList edits() {
+
+		return new EditList(text.length);
+
+	}
+
+	/**
+	 * Replaces the current snapshot with the result of applying {@code edits} to it.
+	 *
+	 * @param edits  Edits made against the current snapshot.
+	 * @throws IllegalArgumentException if {@code edits} was made for text of a different length.
+	 */
+	public void apply(EditList edits) {
+
+		if(edits.size() == 0) return;
+		replace(materialize(edits , null));
+
+	}
+
+	/**
+	 * Creates editable text whose first snapshot is {@code text} itself rather than a copy. The array must not be changed afterward.
+	 *
+	 * @param text  Initial contents.
+	 * @return Editable text.
+	 * @throws NullPointerException if {@code text} is null.
+	 */
+	public static EditableText wrap(char[] text) {
+
+		EditableText wrapped = new EditableText("");
+		wrapped.text = Objects.requireNonNull(text);
+		return wrapped;
+
+	}
+
+	char[] materialize(EditList edits , int[] insertedAt) {
+
+		if(edits.sourceLength() != text.length) throw new IllegalArgumentException("Edits were not made against the current text.");
+		return edits.materialize(text , insertedAt);
+
+	}
+
+	void replace(char[] newText) {
+
+		text = newText;
+
+	}
+
+	/**
+	 * Returns the index of the first occurrence of {@code occurrence} at or after {@code from}, or -1 if there is none.
+	 *
+	 * @param occurrence  Text to find.
+	 * @param from  Index to start searching at.
+	 * @return Index of the occurrence, or -1.
+	 */
+	public int indexOf(String occurrence , int from) {
+
+		int length = occurrence.length();
+		if(length == 0) return from <= text.length ? Math.max(from , 0) : -1;
+		char first = occurrence.charAt(0);
+		int last = text.length - length;
+		for(int i = Math.max(from , 0) ; i <= last ; i++) {
+
+			if(text[i] != first) continue;
+			int j = 1;
+			while(j < length && text[i + j] == occurrence.charAt(j)) j++;
+			if(j == length) return i;
+
+		}
+
+		return -1;
+
+	}
+
+	/**
+	 * Copies characters of the current snapshot into {@code destination}.
+	 *
+	 * @param from  Index of the first character to copy.
+	 * @param to  Index one past the last character to copy.
+	 * @param destination  Array to copy to.
+	 * @param offset  Index in {@code destination} to copy the first character to.
+	 */
+	public void getChars(int from , int to , char[] destination , int offset) {
+
+		System.arraycopy(text , from , destination , offset , to - from);
+
+	}
+
+	/**
+	 * Returns a read only view of the current snapshot, which later edits do not change.
+	 *
+	 * @return Buffer of the current snapshot, positioned at its start.
+	 */
+	public CharBuffer asCharBuffer() {
+
+		return CharBuffer.wrap(text).asReadOnlyBuffer();
+
+	}
+
+	/**
+	 * Writes the current snapshot to {@code writer} without copying it.
+	 *
+	 * @param writer  Destination of the text.
+	 * @throws IOException if {@code writer} throws.
+	 */
+	public void writeTo(Writer writer) throws IOException {
+
+		writer.write(text , 0 , text.length);
+
+	}
+
+	@Override public int length() {
+
+		return text.length;
+
+	}
+
+	@Override public char charAt(int index) {
+
+		return text[index];
+
+	}
+
+	@Override public CharSequence subSequence(int start , int end) {
+
+		return new String(text , start , end - start);
+
+	}
+
+	@Override public String toString() {
+
+		return new String(text);
+
+	}
+
+	static CharSequence view(char[] text) {
+
+		return CharBuffer.wrap(text);
+
+	}
+
+}
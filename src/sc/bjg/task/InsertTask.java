@@ -24,21 +24,37 @@ public class InsertTask extends TextTask {
 	 * @param offset  Offset from the first char to insert.
 	 * @param insert  String to insert.
 	 */
-	public InsertTask(StringBuffer source , IDedToken token , int offset , String insert) {
+	public InsertTask(EditableText source , IDedToken token , int offset , String insert) {
 
-		super(source);
+		super(source , token);
 		this.token = token.token();
 		this.insert = insert;
 		this.offset = offset;
 		
 	}
 
-	@Override public void run() {
+	@Override String operand() {
+
+		return token;
+
+	}
+
+	@Override int editOffset() {
+
+		return offset;
+
+	}
+
+	@Override int deleteLength() {
+
+		return 0;
+
+	}
+
+	@Override String insertText() {
+
+		return insert;
 
-		final int offsetLength = token.length() + insert.length();
-		
-		super.forEachOccurenceOf(token , offsetLength , index -> copy.insert(index + offset, insert));
-		
 	}
 
 }
@@ -0,0 +1,173 @@
+/**
+ * Licensed under MIT No Attribution.
+ */
+package sc.bjg.task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Runs an ordered list of tasks over one text, each editing only the token it was made from, at the offset that token was read at, rather than
+ * every occurrence of the token's text. Nothing is searched for, so each task costs a check that its token is still in place plus its own edit,
+ * however long the text is.
+ * <p>
+ * 	Tasks are applied as if one after another. A task whose token an earlier task has already edited or deleted edits nothing, and a token that an
+ * 	earlier task inserted text in front of is still found behind that text. Tasks whose edits lie near each other are run together on a copy of
+ * 	only the stretch of text they cover, and the edits of all such stretches are applied while copying the text once. Should a task's token or
+ * 	edit reach past its stretch, which deletions by earlier tasks can cause, all tasks are run again on one stretch covering the whole text.
+ * </p>
+ */
+public class PositionalEngine implements Runnable {
+
+	private final EditableText source;
+	private final List<TextTask> tasks;
+
+	/**
+	 * Creates a positional engine.
+	 *
+	 * @param source  Text all of {@code tasks} operate on, which must be the text their tokens were read from.
+	 * @param tasks  Tasks to run, in the order their results should be applied. Each must have been made from a token.
+	 * @throws NullPointerException if either parameter is null.
+	 */
+	public PositionalEngine(EditableText source , List<TextTask> tasks) {
+
+		this.source = Objects.requireNonNull(source);
+		this.tasks = new ArrayList<>(tasks);
+
+	}
+
+	/**
+	 * Performs every task at the offset of its token.
+	 *
+	 * @throws IllegalArgumentException if a task was not made from a token.
+	 * @throws StringIndexOutOfBoundsException if a task edits text outside of {@code source}.
+	 */
+	@Override public void run() {
+
+		int count = tasks.size();
+		if(count == 0) return;
+
+		//the stretch of text each task may touch, sorted by where it starts
+		long[] starts = new long[count];
+		int[] ends = new int[count];
+		for(int i = 0 ; i < count ; i++) {
+
+			TextTask task = tasks.get(i);
+			long site = task.site();
+			if(site < 0) throw new IllegalArgumentException(
+				"A task on " + task.operand() + " was not made from a token, so it has no offset to edit at."
+			);
+
+			long
+				start = Math.max(0 , site + Math.min(0 , task.editOffset())) ,
+				end = Math.min(source.length() , site + Math.max(task.operand().length() , task.editOffset() + task.deleteLength()));
+
+			starts[i] = (start << 32) | i;
+			ends[i] = (int)Math.max(start , end);
+
+		}
+
+		Arrays.sort(starts);
+		EditList edits = source.edits();
+		for(int from = 0 ; from < count ; ) {
+
+			int
+				start = (int)(starts[from] >>> 32) ,
+				end = ends[(int)starts[from]] ,
+				to = from + 1;
+
+			//stretches that overlap or touch are run together, since the order of their edits matters
+			while(to < count && (int)(starts[to] >>> 32) <= end) end = Math.max(end , ends[(int)starts[to++]]);
+			if(!runStretch(starts , from , to , start , end , edits)) {
+
+				edits = source.edits();
+				runStretch(starts , 0 , count , 0 , source.length() , edits);
+				break;
+
+			}
+
+			from = to;
+
+		}
+
+		source.apply(edits);
+
+	}
+
+	/**
+	 * Runs the tasks whose indices are in {@code starts[from]} to {@code starts[to - 1]} on a copy of the text from {@code start} to {@code end},
+	 * adding the edited copy to {@code edits} if any task changed it. Returns false without adding anything if a task reached outside of the copy,
+	 * unless the copy is of the whole text.
+	 */
+	private boolean runStretch(long[] starts , int from , int to , int start , int end , EditList edits) {
+
+		int size = to - from;
+		int[] members = new int[size];
+		for(int i = 0 ; i < size ; i++) members[i] = (int)starts[from + i];
+		Arrays.sort(members);
+
+		//where each task's token now begins in the copy, or -1 once it has been deleted
+		int[] sites = new int[size];
+		for(int i = 0 ; i < size ; i++) sites[i] = (int)(tasks.get(members[i]).site() - start);
+
+		StringBuilder stretch = new StringBuilder(source.subSequence(start , end));
+		boolean 
+			whole = start == 0 && end == source.length() ,
+			changed = false;
+
+		for(int i = 0 ; i < size ; i++) {
+
+			TextTask task = tasks.get(members[i]);
+			task.occurrences = 0;
+			if(sites[i] < 0) continue;
+			if(sites[i] + task.operand().length() > stretch.length()) {
+
+				if(whole) continue;
+				return false;
+
+			}
+
+			if(!holds(stretch , sites[i] , task.operand())) continue;
+
+			int
+				at = sites[i] + task.editOffset() ,
+				deleteLength = task.deleteLength();
+
+			if(at < 0 || at + deleteLength > stretch.length()) {
+
+				if(whole) throw new StringIndexOutOfBoundsException(
+					"A task on " + task.operand() + " at " + task.site() + " edits outside of text of length " + stretch.length()
+				);
+
+				return false;
+
+			}
+
+			String insert = task.insertText();
+			stretch.replace(at , at + deleteLength , insert);
+			task.occurrences = 1;
+			changed = true;
+			for(int j = i + 1 ; j < size ; j++) {
+
+				if(sites[j] >= at + deleteLength) sites[j] += insert.length() - deleteLength;
+				else if(sites[j] >= at) sites[j] = -1;
+
+			}
+
+		}
+
+		if(changed) edits.add(start , end - start , stretch.toString());
+		return true;
+
+	}
+
+	private static boolean holds(StringBuilder text , int at , String token) {
+
+		for(int i = 0 ; i < token.length() ; i++) if(text.charAt(at + i) != token.charAt(i)) return false;
+		return true;
+
+	}
+
+}
@@ -21,18 +21,35 @@ public class PrependTask extends TextTask {
 	 * @param token  Token to prepend to.
 	 * @param add  Text to prepend to tokens.
 	 */
-	public PrependTask(StringBuffer source , IDedToken token , String add) {
+	public PrependTask(EditableText source , IDedToken token , String add) {
 
-		super(source);
+		super(source , token);
 		this.tokenString = token.token();
 		this.add = add;
 		
 	}
 
-	@Override public void run() {
+	@Override String operand() {
 
-		final int offsetLength = tokenString.length() + add.length();
-		super.forEachOccurenceOf(tokenString , offsetLength , index -> copy.insert(index, add));
+		return tokenString;
+
+	}
+
+	@Override int editOffset() {
+
+		return 0;
+
+	}
+
+	@Override int deleteLength() {
+
+		return 0;
+
+	}
+
+	@Override String insertText() {
+
+		return add;
 
 	}
 
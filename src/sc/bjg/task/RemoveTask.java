@@ -19,18 +19,35 @@ public class RemoveTask extends TextTask {
 	 * @param source  Text source to operate on.
 	 * @param operand  Token to remove.
 	 */
-	public RemoveTask(StringBuffer source , IDedToken operand) {
+	public RemoveTask(EditableText source , IDedToken operand) {
 
-		super(source);
+		super(source , operand);
 		this.operand = operand.token();
 		
 	}
 
-	@Override public void run() {
+	@Override String operand() {
+
+		return operand;
+
+	}
+
+	@Override int editOffset() {
+
+		return 0;
+
+	}
+
+	@Override int deleteLength() {
+
+		return operand.length();
+
+	}
+
+	@Override String insertText() {
+
+		return empty;
 
-		final int length = operand.length();
-		super.forEachOccurenceOf(operand, 0 , index -> copy.replace(index, index + length, empty));
-		
 	}
 
 }
@@ -21,22 +21,36 @@ public class ReplaceTask extends TextTask implements Runnable {
 	 * @param operands  Token to replace.
 	 * @param replaceWith  Text to replace any instance of an operand with.
 	 */
-	public ReplaceTask(StringBuffer source , IDedToken operand , String replaceWith) {
+	public ReplaceTask(EditableText source , IDedToken operand , String replaceWith) {
 
-		super(source);
+		super(source , operand);
 		this.operand = operand.token();
 		this.replaceWith = replaceWith;
 		
 	}
 
-	@Override public void run() {
-		
-		final int 
-			length = operand.length() ,
-			replaceLength = replaceWith.length();
-		
-		super.forEachOccurenceOf(operand, replaceLength , index -> copy.replace(index , index + length , replaceWith));
-		
+	@Override String operand() {
+
+		return operand;
+
+	}
+
+	@Override int editOffset() {
+
+		return 0;
+
+	}
+
+	@Override int deleteLength() {
+
+		return operand.length();
+
+	}
+
+	@Override String insertText() {
+
+		return replaceWith;
+
 	}
 
 }
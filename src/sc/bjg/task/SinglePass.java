@@ -0,0 +1,115 @@
+/**
+ * Licensed under MIT No Attribution.
+ */
+package sc.bjg.task;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Checks whether tasks performed together, from occurrences all found in one pass over the text, give the same result as performing them one
+ * after another. {@link TaskEngine} and {@link TextPlan} both perform tasks this way, and both decide whether they may by these checks.
+ * <p>
+ * 	Occurrences are given as longs, each holding the start of an occurrence in its high 32 bits and the index of the task it belongs to in its
+ * 	low 32 bits, so that sorting them puts them in the order they are found in the text.
+ * </p>
+ */
+final class SinglePass {
+	
+	private SinglePass() {}
+	
+	/**
+	 * Returns the length of the longest operand of {@code tasks}, or -1 if their operands are not distinct and non-empty, or a task edits outside
+	 * its occurrences. Such tasks can only be performed one after another.
+	 * 
+	 * @param tasks  Tasks to perform.
+	 * @return Length of the longest operand, or -1.
+	 */
+	static int maxOperandLength(List<TextTask> tasks) {
+		
+		Set<String> distinct = new HashSet<>();
+		int maxLength = 0;
+		for(TextTask x : tasks) {
+			
+			String operand = x.operand();
+			if(operand.isEmpty() || !distinct.add(operand) || !x.editsWithinOccurrence()) return -1;
+			maxLength = Math.max(maxLength , operand.length());
+			
+		}
+		
+		return maxLength;
+		
+	}
+	
+	/**
+	 * Checks whether occurrences of different tasks lie too close to each other, so that one task's edit could reach another task's occurrences.
+	 * 
+	 * @param tasks  Tasks being performed.
+	 * @param occurrences  Occurrences of the tasks, sorted.
+	 * @param count  Number of occurrences.
+	 * @param maxLength  Length of the longest operand of {@code tasks}.
+	 * @return Whether any two occurrences of different tasks are too close.
+	 */
+	static boolean tooClose(List<TextTask> tasks , long[] occurrences , int count , int maxLength) {
+		
+		for(int i = 1 ; i < count ; i++) {
+			
+			int previousTask = (int)occurrences[i - 1] , task = (int)occurrences[i];
+			if(previousTask == task) continue;
+			int previousEnd = (int)(occurrences[i - 1] >>> 32) + tasks.get(previousTask).operand().length();
+			if((int)(occurrences[i] >>> 32) - previousEnd < maxLength) return true;
+			
+		}
+		
+		return false;
+		
+	}
+	
+	/**
+	 * Checks whether the text around any edit in {@code result} contains an occurrence of a later task's operand which the edit either wrote part
+	 * of or joined together. A later task performed on its own would have seen such an occurrence, so the single pass result cannot be used.
+	 * 
+	 * @param matcher  Matcher of the operands.
+	 * @param taskOfMatch  Index of the task whose operand is the given match index of {@code matcher}, or -1 if no task has it.
+	 * @param result  Text with every edit made, which is only read around the edits.
+	 * @param tasks  Tasks being performed.
+	 * @param occurrences  Occurrences of the tasks, sorted.
+	 * @param insertedAt  Offset in {@code result} of the text inserted by the edit of each occurrence.
+	 * @param count  Number of occurrences.
+	 * @param maxLength  Length of the longest operand of {@code tasks}.
+	 * @return Whether an edit forms an occurrence of a later task's operand.
+	 */
+	static boolean formsLaterOccurrence(
+		TokenMatcher matcher ,
+		IntUnaryOperator taskOfMatch ,
+		CharSequence result ,
+		List<TextTask> tasks ,
+		long[] occurrences ,
+		int[] insertedAt ,
+		int count ,
+		int maxLength
+	) {
+		
+		boolean[] forms = {false};
+		for(int i = 0 ; i < count && !forms[0] ; i++) {
+			
+			int editor = (int)occurrences[i];
+			int start = insertedAt[i] , end = start + tasks.get(editor).insertText().length();
+			int windowStart = Math.max(0 , start - maxLength + 1) , windowEnd = Math.min(result.length() , end + maxLength - 1);
+			matcher.forEachMatch(result , windowStart , windowEnd , (match , matchStart , matchEnd) -> {
+				
+				if(taskOfMatch.applyAsInt(match) <= editor) return;
+				boolean touchesEdit = start == end ? matchStart < start && matchEnd > start : matchStart < end && matchEnd > start;
+				if(touchesEdit) forms[0] = true;
+				
+			});
+			
+		}
+		
+		return forms[0];
+		
+	}
+	
+}
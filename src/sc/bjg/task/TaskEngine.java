@@ -0,0 +1,100 @@
+/**
+ * Licensed under MIT No Attribution.
+ */
+package sc.bjg.task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Runs an ordered list of tasks over one text.
+ * <p>
+ * 	Rather than letting every task rescan the text for its own operand, the operands of all tasks are compiled into one {@link TokenMatcher} and
+ * 	every occurrence is found in a single pass. Each task is then given the same occurrences it would have found had the tasks been run one after
+ * 	another, and the edits of all tasks are collected into one {@link EditList} that is applied while copying the text once.
+ * </p>
+ * <p>
+ * 	Running tasks one after another lets an earlier task change what a later task sees. Whenever that could make a difference  two tasks share an
+ * 	operand, occurrences of different tasks lie too close to each other, or the text written by one task forms an occurrence for a later one  the
+ * 	engine falls back to running the tasks one at a time, so the result is always the same as running them in order.
+ * </p>
+ */
+public class TaskEngine implements Runnable {
+
+	private final EditableText source;
+	private final List<TextTask> tasks;
+
+	/**
+	 * Creates a task engine.
+	 *
+	 * @param source  Text all of {@code tasks} operate on.
+	 * @param tasks  Tasks to run, in the order their results should be applied.
+	 * @throws NullPointerException if either parameter is null.
+	 */
+	public TaskEngine(EditableText source , List<TextTask> tasks) {
+
+		this.source = Objects.requireNonNull(source);
+		this.tasks = new ArrayList<>(tasks);
+
+	}
+
+	@Override public void run() {
+
+		if(tasks.isEmpty()) return;
+		if(!runSinglePass()) tasks.forEach(TextTask::run);
+
+	}
+
+	private boolean runSinglePass() {
+
+		int taskCount = tasks.size();
+		int maxLength = SinglePass.maxOperandLength(tasks);
+		if(maxLength == -1) return false;
+		List<String> operands = new ArrayList<>(taskCount);
+		for(TextTask x : tasks) operands.add(x.operand());
+
+		TokenMatcher matcher = new TokenMatcher(operands);
+
+		//each task takes the leftmost occurrences that do not overlap one another, exactly as indexOf from the end of the last one would
+		int[] lastEnd = new int[taskCount];
+		long[][] found = {new long[16]};
+		int[] foundCount = {0};
+		matcher.forEachMatch(source , (task , start , end) -> {
+
+			if(start < lastEnd[task]) return;
+			lastEnd[task] = end;
+			if(foundCount[0] == found[0].length) found[0] = Arrays.copyOf(found[0] , foundCount[0] * 2);
+			found[0][foundCount[0]++] = ((long)start << 32) | task;
+
+		});
+
+		int count = foundCount[0];
+		long[] occurrences = found[0];
+		Arrays.sort(occurrences , 0 , count);
+
+		if(SinglePass.tooClose(tasks , occurrences , count , maxLength)) return false;
+
+		int[] taskOccurrences = new int[taskCount];
+		EditList edits = source.edits();
+		for(int i = 0 ; i < count ; i++) {
+
+			TextTask task = tasks.get((int)occurrences[i]);
+			edits.add((int)(occurrences[i] >>> 32) + task.editOffset() , task.deleteLength() , task.insertText());
+			taskOccurrences[(int)occurrences[i]]++;
+
+		}
+
+		int[] insertedAt = new int[count];
+		char[] result = source.materialize(edits , insertedAt);
+		CharSequence view = EditableText.view(result);
+		if(SinglePass.formsLaterOccurrence(matcher , task -> task , view , tasks , occurrences , insertedAt , count , maxLength)) return false;
+
+		source.replace(result);
+		for(int i = 0 ; i < taskCount ; i++) tasks.get(i).occurrences = taskOccurrences[i];
+		return true;
+
+	}
+
+}
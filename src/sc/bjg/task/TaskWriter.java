@@ -0,0 +1,165 @@
+/**
+ * Licensed under MIT No Attribution.
+ */
+package sc.bjg.task;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writer which performs a task on the text written through it before passing it on. Occurrences of the task's operand are found with a
+ * Knuth-Morris-Pratt automaton, so at most one operand's length of text is ever held back, and a chain of these writers performs a list of tasks
+ * on text of any size in constant memory. Each writer finds the same occurrences as running its task on the whole text would.
+ * <p>
+ * 	Text held back because it may begin an occurrence is only written on by {@link #close()}, not {@link #flush()}.
+ * </p>
+ */
+public class TaskWriter extends FilterWriter {
+
+	private final String
+		operand ,
+		insert;
+
+	private final int
+		editOffset ,
+		deleteLength;
+
+	/**
+	 * For each length of a partial match, the length of the longest proper prefix of the operand that is also a suffix of that partial match.
+	 */
+	private final int[] fallback;
+	private final TextTask task;
+
+	/**
+	 * Number of characters of the operand matched by the most recently written text, which are being held back.
+	 */
+	private int matched = 0;
+	private boolean closed = false;
+
+	/**
+	 * Creates a task writer.
+	 *
+	 * @param out  Writer to pass the edited text on to.
+	 * @param task  Task to perform. Its text is not used, and may be null.
+	 * @throws IllegalArgumentException if {@code task} makes edits outside of the occurrences of its operand, which cannot be streamed.
+	 */
+	public TaskWriter(Writer out , TextTask task) {
+
+		super(out);
+		if(!task.editsWithinOccurrence()) throw new IllegalArgumentException(
+			"Tasks editing text outside of the occurrences of their operand cannot be streamed, but a task on " + task.operand() + " does."
+		);
+
+		this.task = task;
+		task.occurrences = 0;
+		operand = task.operand();
+		insert = task.insertText();
+		editOffset = task.editOffset();
+		deleteLength = task.deleteLength();
+
+		fallback = new int[operand.length() + 1];
+		for(int i = 2 , border = 0 ; i <= operand.length() ; i++) {
+
+			while(border > 0 && operand.charAt(border) != operand.charAt(i - 1)) border = fallback[border];
+			if(operand.charAt(border) == operand.charAt(i - 1)) border++;
+			fallback[i] = border;
+
+		}
+
+	}
+
+	@Override public void write(int c) throws IOException {
+
+		char next = (char)c;
+
+		//an empty operand occurs in front of every character
+		if(operand.isEmpty()) {
+
+			out.write(insert);
+			out.write(next);
+			task.occurrences++;
+			return;
+
+		}
+
+		while(true) {
+
+			if(operand.charAt(matched) == next) {
+
+				if(++matched == operand.length()) {
+
+					out.write(operand , 0 , editOffset);
+					out.write(insert);
+					out.write(operand , editOffset + deleteLength , operand.length() - editOffset - deleteLength);
+					task.occurrences++;
+					matched = 0;
+
+				}
+
+				return;
+
+			}
+
+			if(matched == 0) {
+
+				out.write(next);
+				return;
+
+			}
+
+			//the start of the held back text can no longer begin an occurrence
+			out.write(operand , 0 , matched - fallback[matched]);
+			matched = fallback[matched];
+
+		}
+
+	}
+
+	@Override public void write(char[] chars , int offset , int length) throws IOException {
+
+		int end = offset + length;
+		for(int i = offset ; i < end ; ) {
+
+			//text that cannot begin an occurrence is passed on in one piece
+			if(matched == 0 && !operand.isEmpty()) {
+
+				int start = i;
+				char first = operand.charAt(0);
+				while(i < end && chars[i] != first) i++;
+				if(i > start) out.write(chars , start , i - start);
+				if(i == end) break;
+
+			}
+
+			write(chars[i++]);
+
+		}
+
+	}
+
+	@Override public void write(String string , int offset , int length) throws IOException {
+
+		for(int i = offset ; i < offset + length ; i++) write(string.charAt(i));
+
+	}
+
+	/**
+	 * Writes any text still held back and closes the writer this one passes text on to.
+	 */
+	@Override public void close() throws IOException {
+
+		if(closed) return;
+		closed = true;
+		if(operand.isEmpty()) {
+
+			out.write(insert);
+			task.occurrences++;
+
+		} else out.write(operand , 0 , matched);
+		matched = 0;
+		super.close();
+
+	}
+
+}
@@ -0,0 +1,282 @@
+/**
+ * Licensed under MIT No Attribution.
+ */
+package sc.bjg.task;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Text compiled against the operands tasks may later be performed with. Every occurrence of every operand is found once, when the plan is created,
+ * so performing tasks is a matter of writing the literal text between occurrences and each task's edit of them, one after another, to an
+ * {@link Appendable}. The text is never copied or changed.
+ * <p>
+ * 	A plan gives the same result as performing its tasks one after another on a copy of the text. Whenever the tasks could affect each other,
+ * 	by the same checks a {@link TaskEngine} makes, or a task's operand was not compiled into the plan, the plan does exactly that instead.
+ * </p>
+ * <p>
+ * 	Plans are immutable, so any number of threads may render the same plan at once. Rendering only reads the tasks it is given, and does not set
+ * 	their {@link TextTask#occurrences()}.
+ * </p>
+ */
+public class TextPlan {
+
+	private final CharSequence text;
+	private final Map<String , Integer> operandIndices = new HashMap<>();
+	private final TokenMatcher matcher;
+	
+	/**
+	 * For each operand, the start of each of its occurrences, leftmost first and none overlapping the one before it.
+	 */
+	private final int[][] occurrences;
+	
+	/**
+	 * Creates a plan.
+	 * 
+	 * @param text  Text tasks will be performed on.
+	 * @param operands  Operands tasks may have. Empty and repeated operands are ignored.
+	 */
+	public TextPlan(CharSequence text , Collection<String> operands) {
+		
+		this(text.toString() , new ArrayList<>(new LinkedHashSet<>(operands)));
+		
+	}
+	
+	/**
+	 * Creates a plan of {@code text} as it is, for operands without repeats.
+	 */
+	private TextPlan(CharSequence text , List<String> distinct) {
+		
+		this.text = text;
+		distinct.remove("");
+		for(int i = 0 ; i < distinct.size() ; i++) operandIndices.put(distinct.get(i) , i);
+		
+		occurrences = new int[distinct.size()][];
+		if(distinct.isEmpty()) {
+			
+			matcher = null;
+			return;
+			
+		}
+		
+		matcher = new TokenMatcher(distinct);
+		int[] 
+			lastEnd = new int[distinct.size()] ,
+			counts = new int[distinct.size()];
+		
+		for(int i = 0 ; i < occurrences.length ; i++) occurrences[i] = new int[4];
+		matcher.forEachMatch(text , (operand , start , end) -> {
+			
+			if(start < lastEnd[operand]) return;
+			lastEnd[operand] = end;
+			if(counts[operand] == occurrences[operand].length) occurrences[operand] = Arrays.copyOf(occurrences[operand] , counts[operand] * 2);
+			occurrences[operand][counts[operand]++] = start;
+			
+		});
+		
+		for(int i = 0 ; i < occurrences.length ; i++) occurrences[i] = Arrays.copyOf(occurrences[i] , counts[i]);
+		
+	}
+	
+	/**
+	 * Creates a plan of {@code text} without copying it, as for a text too large to copy cheaply, or held outside the heap. The text must not
+	 * change while the plan is in use.
+	 * 
+	 * @param text  Text tasks will be performed on.
+	 * @param operands  Operands tasks may have. Empty and repeated operands are ignored.
+	 * @return New plan.
+	 */
+	public static TextPlan over(CharSequence text , Collection<String> operands) {
+		
+		return new TextPlan(text , new ArrayList<>(new LinkedHashSet<>(operands)));
+		
+	}
+	
+	/**
+	 * Returns the text of this plan, before any task.
+	 * 
+	 * @return Text tasks are performed on.
+	 */
+	public String text() {
+		
+		return text.toString();
+		
+	}
+	
+	/**
+	 * Returns the number of occurrences of an operand found when this plan was created, leftmost first and none overlapping the one before it,
+	 * which is the number a task on that operand edits whenever {@link #renderSinglePass(List, Appendable)} appends a result.
+	 * 
+	 * @param operand  Operand of a task.
+	 * @return Number of occurrences, or -1 if the operand was not compiled into this plan.
+	 */
+	public int occurrences(String operand) {
+		
+		Integer index = operandIndices.get(operand);
+		return index == null ? -1 : occurrences[index].length;
+		
+	}
+	
+	/**
+	 * Appends the result of performing {@code tasks} in order on the text of this plan to {@code out}. The text the tasks were created with is not
+	 * used, and may be null.
+	 * 
+	 * @param tasks  Tasks to perform.
+	 * @param out  Destination of the result.
+	 * @throws IOException if {@code out} throws.
+	 */
+	public void render(List<TextTask> tasks , Appendable out) throws IOException {
+		
+		if(!renderSinglePass(tasks , out)) {
+			
+			EditableText copy = new EditableText(text);
+			for(TextTask x : tasks) x.runOn(copy);
+			out.append(copy);
+			
+		}
+		
+	}
+	
+	/**
+	 * Appends the result of performing {@code tasks} in order on the text of this plan to {@code out}, if it can be written in one pass from the
+	 * occurrences found when the plan was created. Otherwise nothing is appended.
+	 * 
+	 * @param tasks  Tasks to perform.
+	 * @param out  Destination of the result.
+	 * @return Whether the result was appended.
+	 * @throws IOException if {@code out} throws.
+	 */
+	public boolean renderSinglePass(List<TextTask> tasks , Appendable out) throws IOException {
+		
+		int maxLength = SinglePass.maxOperandLength(tasks);
+		if(maxLength == -1) return false;
+		int[] taskOfOperand = new int[occurrences.length];
+		Arrays.fill(taskOfOperand , -1);
+		int count = 0;
+		for(int i = 0 ; i < tasks.size() ; i++) {
+			
+			Integer operand = operandIndices.get(tasks.get(i).operand());
+			if(operand == null) return false;
+			taskOfOperand[operand] = i;
+			count += occurrences[operand].length;
+			
+		}
+		
+		long[] found = new long[count];
+		count = 0;
+		for(int operand = 0 ; operand < occurrences.length ; operand++) if(taskOfOperand[operand] != -1) {
+			
+			for(int x : occurrences[operand]) found[count++] = ((long)x << 32) | taskOfOperand[operand];
+			
+		}
+		
+		Arrays.sort(found);
+		
+		if(SinglePass.tooClose(tasks , found , count , maxLength)) return false;
+		Rendering rendering = new Rendering(tasks , found);
+		IntUnaryOperator taskOfMatch = operand -> taskOfOperand[operand];
+		if(SinglePass.formsLaterOccurrence(matcher , taskOfMatch , rendering , tasks , found , rendering.insertedAt , count , maxLength)) return false;
+		
+		int previous = 0;
+		for(int i = 0 ; i < count ; i++) {
+			
+			out.append(text , previous , rendering.editAt[i]);
+			out.append(tasks.get((int)found[i]).insertText());
+			previous = rendering.editAt[i] + rendering.deleted[i];
+			
+		}
+		
+		out.append(text , previous , text.length());
+		return true;
+		
+	}
+	
+	/**
+	 * The result of performing tasks on the text of the plan, which is never built, but can be read in parts as a {@link CharSequence}.
+	 */
+	private class Rendering implements CharSequence {
+		
+		private final List<TextTask> tasks;
+		private final long[] found;
+		
+		/**
+		 * For each edit, its offset in the text, the number of characters it deletes, and the offset in the result its inserted text starts at.
+		 */
+		private final int[] 
+			editAt ,
+			deleted ,
+			insertedAt;
+		
+		private final int length;
+		
+		Rendering(List<TextTask> tasks , long[] found) {
+			
+			this.tasks = tasks;
+			this.found = found;
+			editAt = new int[found.length];
+			deleted = new int[found.length];
+			insertedAt = new int[found.length];
+			
+			int shift = 0;
+			for(int i = 0 ; i < found.length ; i++) {
+				
+				TextTask task = tasks.get((int)found[i]);
+				editAt[i] = (int)(found[i] >>> 32) + task.editOffset();
+				deleted[i] = task.deleteLength();
+				insertedAt[i] = editAt[i] + shift;
+				shift += task.insertText().length() - deleted[i];
+				
+			}
+			
+			length = text.length() + shift;
+			
+		}
+		
+		@Override public int length() {
+			
+			return length;
+			
+		}
+		
+		@Override public char charAt(int index) {
+			
+			//the last edit whose inserted text starts at or before index
+			int low = 0 , high = insertedAt.length - 1 , edit = -1;
+			while(low <= high) {
+				
+				int middle = (low + high) >>> 1;
+				if(insertedAt[middle] <= index) {
+					
+					edit = middle;
+					low = middle + 1;
+					
+				} else high = middle - 1;
+				
+			}
+			
+			if(edit == -1) return text.charAt(index);
+			String insert = tasks.get((int)found[edit]).insertText();
+			int intoEdit = index - insertedAt[edit];
+			if(intoEdit < insert.length()) return insert.charAt(intoEdit);
+			return text.charAt(editAt[edit] + deleted[edit] + intoEdit - insert.length());
+			
+		}
+		
+		@Override public CharSequence subSequence(int start , int end) {
+			
+			StringBuilder sequence = new StringBuilder(end - start);
+			for(int i = start ; i < end ; i++) sequence.append(charAt(i));
+			return sequence;
+			
+		}
+		
+	}
+	
+}
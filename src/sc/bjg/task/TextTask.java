@@ -5,42 +5,195 @@ package sc.bjg.task;
 
 import java.util.function.IntConsumer;
 
+import sc.bjg.IDedToken;
+
 /**
  * Abstract class for tasks on text.
  */
 public abstract class TextTask implements Runnable {
 
+	protected final EditableText text;
+	
+	/**
+	 * Offset of the token this task operates on in the text it was read from, or -1 if the task was not made from a token.
+	 */
+	private final long site;
+	
+	/**
+	 * Number of occurrences edited the last time this task was performed.
+	 */
+	int occurrences = 0;
+	
+	public TextTask(EditableText source) {
+		
+		this.text = source;
+		site = -1;
+		
+	}
+	
+	/**
+	 * Creates a task on {@code token}, which can also be performed only at the token's own offset by a {@link PositionalEngine}.
+	 * 
+	 * @param source  Text to operate on.
+	 * @param token  Token read from the text, whose offset is kept.
+	 */
+	protected TextTask(EditableText source , IDedToken token) {
+		
+		this.text = source;
+		site = token.offset();
+		
+	}
+	
+	/**
+	 * Finds every occurrence of {@link #operand()} in the current snapshot of the text and applies this task's edit to each of them at once.
+	 */
+	@Override public void run() {
+		
+		occurrences = runOn(text);
+		
+	}
+	
+	/**
+	 * Performs this task on {@code target} rather than the text it was created with.
+	 * 
+	 * @param target  Text to edit.
+	 * @return Number of occurrences edited.
+	 */
+	final int runOn(EditableText target) {
+		
+		if(!operand().isEmpty() && editOffset() > operand().length()) return insertPastEach(target);
+		EditList edits = target.edits();
+		final int 
+			offset = editOffset() ,
+			deleteLength = deleteLength();
+		final String insert = insertText();
+		
+		forEachOccurenceOf(target , operand() , index -> edits.add(index + offset , deleteLength , insert));
+		target.apply(edits);
+		return edits.size();
+		
+	}
+	
+	/**
+	 * Performs a task inserting past the end of each occurrence one occurrence at a time, searching on from the end of the occurrence and the text
+	 * inserted for it in the text as edited so far. Text inserted there may form or hide a later occurrence, so such a task finds the occurrences
+	 * it always has only this way.
+	 * 
+	 * @param target  Text to edit.
+	 * @return Number of occurrences edited.
+	 * @throws StringIndexOutOfBoundsException if an insert would land past the end of the text.
+	 */
+	private int insertPastEach(EditableText target) {
+		
+		String 
+			operand = operand() ,
+			insert = insertText();
+		
+		int offset = editOffset();
+		StringBuilder edited = new StringBuilder(target.asCharBuffer());
+		int count = 0;
+		int index = 0;
+		int nextOccurence;
+		while((nextOccurence = edited.indexOf(operand , index)) != -1) {
+			
+			edited.insert(nextOccurence + offset , insert);
+			count++;
+			index = nextOccurence + operand.length() + insert.length();
+			
+		}
+		
+		char[] chars = new char[edited.length()];
+		edited.getChars(0 , chars.length , chars , 0);
+		target.replace(chars);
+		return count;
+		
+	}
+	
 	/**
-	 * Creates a distinct {@code StringBuilder} which is a deep copy of {@code source}.
+	 * Returns the number of occurrences of its operand this task edited the last time it was performed, whether by {@link #run()}, a
+	 * {@link TaskEngine}, or a {@link TaskWriter}.
 	 * 
-	 * @param source  {@code StringBuilder} to copy from.
-	 * @return New {@code StringBuilder}.
-	 */ 
-	public static StringBuffer copy(StringBuilder source) {
+	 * @return Number of occurrences edited.
+	 */
+	public int occurrences() {
 		
-		int size = (int) source.chars().count();
-		StringBuffer copy = new StringBuffer(size);
-		source.chars().forEach(value -> copy.append((char)value));		
-		return copy;
+		return occurrences;
 		
 	}
 	
-	protected StringBuffer copy;
+	/**
+	 * Returns the offset in the text it was read from of the token this task was made from.
+	 * 
+	 * @return Offset of the token, or -1 if this task was not made from one.
+	 */
+	final long site() {
+		
+		return site;
+		
+	}
 	
-	public TextTask(StringBuffer source) {
+	/**
+	 * Returns the token this task searches for.
+	 * 
+	 * @return Token operated on by this task.
+	 */
+	abstract String operand();
+	
+	/**
+	 * Returns the offset from the first character of an occurrence of {@link #operand()} at which this task edits the text.
+	 * 
+	 * @return Offset of the edit relative to an occurrence.
+	 */
+	abstract int editOffset();
+	
+	/**
+	 * Returns the number of characters this task deletes at {@link #editOffset()} for each occurrence.
+	 * 
+	 * @return Number of characters deleted per occurrence.
+	 */
+	abstract int deleteLength();
+	
+	/**
+	 * Returns the text this task inserts at {@link #editOffset()} for each occurrence, after any deletion.
+	 * 
+	 * @return Text inserted per occurrence.
+	 */
+	abstract String insertText();
+	
+	/**
+	 * Returns whether every edit this task makes lies within the occurrence it was made for. Only such tasks can be located together with others in
+	 * a single pass.
+	 * 
+	 * @return {@code true} if this task never edits text outside of an occurrence of its operand.
+	 */
+	final boolean editsWithinOccurrence() {
+		
+		int offset = editOffset();
+		return offset >= 0 && offset + deleteLength() <= operand().length();
+		
+	}
+	
+	/**
+	 * Invokes {@code callback} with the index of each occurrence of {@code occurrence} in the current snapshot of the text, going from left to right
+	 * and skipping occurrences that overlap the previous one.
+	 * 
+	 * @param occurrence  Text to find.
+	 * @param callback  Code to invoke with the index of each occurrence.
+	 */
+	protected final void forEachOccurenceOf(String occurrence , IntConsumer callback) {
 		
-		this.copy = source;
+		forEachOccurenceOf(text , occurrence , callback);
 		
 	}
 	
-	protected final void forEachOccurenceOf(String occurrence , int offsetBy , IntConsumer callback) {
+	private static void forEachOccurenceOf(EditableText text , String occurrence , IntConsumer callback) {
 		
 		int index = 0;
 		int nextOccurence;
-		while((nextOccurence = copy.indexOf(occurrence , index)) != -1) {
+		while((nextOccurence = text.indexOf(occurrence , index)) != -1) {
 			
 			callback.accept(nextOccurence);
-			index = nextOccurence + offsetBy;
+			index = nextOccurence + Math.max(occurrence.length() , 1);
 					
 		}
 		
@@ -0,0 +1,240 @@
+/**
+ * Licensed under MIT No Attribution.
+ */
+package sc.bjg.task;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Aho-Corasick automaton over a fixed set of token strings. Once built, a matcher finds every occurrence of every one of its tokens in a single
+ * left to right pass over some text, which is what lets a whole set of tasks be located without rescanning the text once per task.
+ * <p>
+ * 	Matchers are immutable after construction and may be shared between threads.
+ * </p>
+ */
+public class TokenMatcher {
+
+	/**
+	 * Receiver of matches found by a {@code TokenMatcher}.
+	 */
+	@FunctionalInterface public interface MatchConsumer {
+
+		/**
+		 * Invoked for an occurrence of a token.
+		 *
+		 * @param pattern  Index of the token that was found, in the order the tokens were given to the matcher.
+		 * @param start  Index of the first character of the occurrence.
+		 * @param end  Index one past the last character of the occurrence.
+		 */
+		void accept(int pattern , int start , int end);
+
+	}
+
+	private static final int NO_STATE = -1;
+
+	private final int[]
+		patternLengths ,
+		childStart ,
+		childTargets ,
+		fail ,
+		terminalPattern ,
+		dictionaryLink;
+
+	private final char[] childChars;
+
+	/**
+	 * Compiles a matcher for the given tokens. Tokens must be distinct and not empty.
+	 *
+	 * @param patterns  Tokens to search for.
+	 * @throws IllegalArgumentException if any token is empty or is given more than once.
+	 * @throws NullPointerException if {@code patterns} or any of its elements is null.
+	 */
+	public TokenMatcher(List<String> patterns) {
+
+		Objects.requireNonNull(patterns);
+		patternLengths = new int[patterns.size()];
+
+		List<TreeMap<Character , Integer>> trie = new ArrayList<>();
+		List<Integer> terminals = new ArrayList<>();
+		trie.add(new TreeMap<>());
+		terminals.add(NO_STATE);
+
+		for(int i = 0 ; i < patterns.size() ; i++) {
+
+			String pattern = Objects.requireNonNull(patterns.get(i));
+			if(pattern.isEmpty()) throw new IllegalArgumentException("Empty tokens cannot be matched.");
+			patternLengths[i] = pattern.length();
+
+			int node = 0;
+			for(int j = 0 ; j < pattern.length() ; j++) {
+
+				Integer next = trie.get(node).get(pattern.charAt(j));
+				if(next == null) {
+
+					next = trie.size();
+					trie.get(node).put(pattern.charAt(j) , next);
+					trie.add(new TreeMap<>());
+					terminals.add(NO_STATE);
+
+				}
+
+				node = next;
+
+			}
+
+			if(terminals.get(node) != NO_STATE) throw new IllegalArgumentException(pattern + " was given more than once.");
+			terminals.set(node , i);
+
+		}
+
+		//flatten the trie so lookups are a binary search over a contiguous range of sorted chars
+		int states = trie.size();
+		childStart = new int[states + 1];
+		childChars = new char[states - 1];
+		childTargets = new int[states - 1];
+		terminalPattern = new int[states];
+
+		int edge = 0;
+		for(int i = 0 ; i < states ; i++) {
+
+			childStart[i] = edge;
+			terminalPattern[i] = terminals.get(i);
+			for(Map.Entry<Character , Integer> x : trie.get(i).entrySet()) {
+
+				childChars[edge] = x.getKey();
+				childTargets[edge++] = x.getValue();
+
+			}
+
+		}
+
+		childStart[states] = edge;
+
+		//breadth first computation of failure and dictionary links
+		fail = new int[states];
+		dictionaryLink = new int[states];
+		dictionaryLink[0] = NO_STATE;
+		int[] queue = new int[states];
+		int head = 0 , tail = 0;
+
+		for(int i = childStart[0] ; i < childStart[1] ; i++) {
+
+			fail[childTargets[i]] = 0;
+			dictionaryLink[childTargets[i]] = NO_STATE;
+			queue[tail++] = childTargets[i];
+
+		}
+
+		while(head < tail) {
+
+			int node = queue[head++];
+			for(int i = childStart[node] ; i < childStart[node + 1] ; i++) {
+
+				int child = childTargets[i];
+				char c = childChars[i];
+				int fallback = fail[node];
+				int next;
+				while((next = child(fallback , c)) == NO_STATE && fallback != 0) fallback = fail[fallback];
+				fail[child] = next == NO_STATE ? 0 : next;
+				dictionaryLink[child] = terminalPattern[fail[child]] != NO_STATE ? fail[child] : dictionaryLink[fail[child]];
+				queue[tail++] = child;
+
+			}
+
+		}
+
+	}
+
+	/**
+	 * Returns the number of tokens this matcher searches for.
+	 *
+	 * @return Number of tokens.
+	 */
+	public int patterns() {
+
+		return patternLengths.length;
+
+	}
+
+	/**
+	 * Returns the length of the token at index {@code pattern}.
+	 *
+	 * @param pattern  Index of a token.
+	 * @return Length of that token.
+	 */
+	public int patternLength(int pattern) {
+
+		return patternLengths[pattern];
+
+	}
+
+	/**
+	 * Reports every occurrence of every token within {@code text}, overlapping occurrences included. Occurrences are reported in increasing order
+	 * of their end index.
+	 *
+	 * @param text  Text to search.
+	 * @param callback  Receiver of occurrences.
+	 */
+	public void forEachMatch(CharSequence text , MatchConsumer callback) {
+
+		forEachMatch(text , 0 , text.length() , callback);
+
+	}
+
+	/**
+	 * Reports every occurrence of every token lying entirely within {@code text} between {@code from} and {@code to}. Occurrences are reported in
+	 * increasing order of their end index.
+	 *
+	 * @param text  Text to search.
+	 * @param from  First index to search, inclusive.
+	 * @param to  Last index to search, exclusive.
+	 * @param callback  Receiver of occurrences.
+	 */
+	public void forEachMatch(CharSequence text , int from , int to , MatchConsumer callback) {
+
+		Objects.requireNonNull(callback);
+		int state = 0;
+		for(int i = from ; i < to ; i++) {
+
+			state = step(state , text.charAt(i));
+			for(int x = terminalPattern[state] != NO_STATE ? state : dictionaryLink[state] ; x != NO_STATE ; x = dictionaryLink[x]) {
+
+				int pattern = terminalPattern[x];
+				callback.accept(pattern , i + 1 - patternLengths[pattern] , i + 1);
+
+			}
+
+		}
+
+	}
+
+	private int step(int state , char c) {
+
+		int next;
+		while((next = child(state , c)) == NO_STATE && state != 0) state = fail[state];
+		return next == NO_STATE ? 0 : next;
+
+	}
+
+	private int child(int state , char c) {
+
+		int low = childStart[state] , high = childStart[state + 1] - 1;
+		while(low <= high) {
+
+			int middle = (low + high) >>> 1;
+			char x = childChars[middle];
+			if(x < c) low = middle + 1;
+			else if(x > c) high = middle - 1;
+			else return childTargets[middle];
+
+		}
+
+		return NO_STATE;
+
+	}
+
+}